@@ -0,0 +1,62 @@
+// Redirect throughput at high concurrency.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=2000 loadtest/redirect.js
+//
+// Run it once with VIRTUAL_THREADS_ENABLED=false and once with true against
+// the same MongoDB/Redis, then compare http_reqs/s and the latency percentiles.
+// Start the backend with RATE_LIMIT_ENABLED=false: every VU comes from one
+// address, so the per-client limits would otherwise answer most requests
+// with 429 and measure the limiter instead of the redirect path.
+import http from 'k6/http';
+import { check, fail } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '2000', 10);
+const LINKS = parseInt(__ENV.LINKS || '500', 10);
+
+export const options = {
+    scenarios: {
+        redirects: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: '2m', target: VUS },
+                { duration: '15s', target: 0 },
+            ],
+            gracefulRampDown: '5s',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    discardResponseBodies: true,
+};
+
+export function setup() {
+    // One batch request instead of LINKS single shortens
+    const urls = [];
+    for (let i = 0; i < LINKS; i++) {
+        urls.push(`https://example.com/load-test/${i}`);
+    }
+    const res = http.post(`${BASE_URL}/shorten/batch`, JSON.stringify(urls),
+        { headers: { 'Content-Type': 'application/json' }, responseType: 'text' });
+    if (res.status !== 200) {
+        fail(`Shortening the test links failed with ${res.status}: ${res.body}`);
+    }
+    const codes = res.body.split('\n')
+        .filter((line) => line.length > 0)
+        .map((line) => JSON.parse(line).shortUrl)
+        .filter((code) => code);
+    if (codes.length === 0) {
+        fail('No test links were created');
+    }
+    return { codes };
+}
+
+export default function (data) {
+    const code = data.codes[Math.floor(Math.random() * data.codes.length)];
+    const res = http.get(`${BASE_URL}/${code}`, { redirects: 0 });
+    check(res, {
+        'is 301': (r) => r.status === 301,
+        'not rate limited': (r) => r.status !== 429,
+    });
+}
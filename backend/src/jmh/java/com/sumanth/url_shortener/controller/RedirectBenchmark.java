@@ -0,0 +1,124 @@
+package com.sumanth.url_shortener.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import org.springframework.web.filter.CorsFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sumanth.url_shortener.exception.GlobalExceptionHandler;
+import com.sumanth.url_shortener.security.JwtAuthenticationFilter;
+import com.sumanth.url_shortener.security.JwtService;
+import com.sumanth.url_shortener.service.InMemoryBackends;
+import com.sumanth.url_shortener.service.ShortDomains;
+import com.sumanth.url_shortener.service.UrlCacheService;
+import com.sumanth.url_shortener.service.UrlShortenService;
+import com.sumanth.url_shortener.util.SecureCodeGenerator;
+import com.sumanth.url_shortener.util.UrlCanonicalizer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * A redirect served from the local cache through {@link UrlController}, with
+ * the CORS and JWT filters in front of it, against the same request answered
+ * by {@link RedirectFilter}.
+ * <p>
+ * Both go through MockMvc, so its own overhead is in both numbers. The real
+ * Spring Security chain has more filters than the two used here, so the
+ * controller figure is a lower bound.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedirectBenchmark {
+
+    private static final int HOT_CODES = 1024;
+
+    private MockMvc controller;
+    private MockMvc filter;
+    private String[] paths;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        UrlShortenService service = new UrlShortenService(
+                InMemoryBackends.urlMappingRepository(),
+                InMemoryBackends.counterService(),
+                new UrlCacheService(InMemoryBackends.redisTemplate(true), true, 10_000, Duration.ofMinutes(10)),
+                InMemoryBackends.clickRecorder(),
+                InMemoryBackends.shortCodeFilter(),
+                new SecureCodeGenerator("benchmark_secret",
+                        "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"),
+                new UrlCanonicalizer(),
+                InMemoryBackends.writeBehind(),
+                InMemoryBackends.aliasReservations(),
+                new ShortDomains(),
+                InMemoryBackends.linkLimits(),
+                new SimpleMeterRegistry(),
+                true);
+
+        paths = new String[HOT_CODES];
+        for (int i = 0; i < HOT_CODES; i++) {
+            String shortCode = service.shortenUrl("https://example.com/articles/" + i).getShortCode();
+            service.expandUrl(shortCode, true);
+            paths[i] = "/" + shortCode;
+        }
+
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(List.of("http://localhost:3000"));
+        cors.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        cors.setAllowCredentials(true);
+        cors.setExposedHeaders(List.of("Location"));
+        UrlBasedCorsConfigurationSource corsSource = new UrlBasedCorsConfigurationSource();
+        corsSource.registerCorsConfiguration("/**", cors);
+        JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(
+                new JwtService("benchmark-secret-benchmark-secret-benchmark-secret", 86400000L));
+        UrlController urlController = new UrlController(service, null, null, null, null, new ShortDomains(),
+                new ObjectMapper());
+
+        controller = MockMvcBuilders.standaloneSetup(urlController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addFilters(new CorsFilter(corsSource), jwtFilter)
+                .build();
+        filter = MockMvcBuilders.standaloneSetup(urlController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addFilters(new RedirectFilter(service, new ShortDomains(), 301, 64, List.of()), new CorsFilter(corsSource), jwtFilter)
+                .build();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        long next;
+    }
+
+    @Benchmark
+    public MvcResult controller(Cursor cursor) throws Exception {
+        return controller.perform(get(paths[(int) (cursor.next++ & (HOT_CODES - 1))])).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult redirectFilter(Cursor cursor) throws Exception {
+        return filter.perform(get(paths[(int) (cursor.next++ & (HOT_CODES - 1))])).andReturn();
+    }
+}
@@ -0,0 +1,77 @@
+package com.sumanth.url_shortener.security;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.Authentication;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+
+/**
+ * {@code legacyFilterPath} is what JwtAuthenticationFilter used to do per
+ * request: build a parser and verify the token in isTokenValid, then build
+ * another and verify it again in parseToken.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private final JwtService jwtService = new JwtService(SECRET, 86400000L);
+    private final JwtService cachingJwtService = new JwtService(SECRET, 86400000L, 10_000);
+    private final Key key = Keys.hmacShaKeyFor(SECRET.getBytes());
+    private String token;
+
+    @Setup
+    public void setUp() {
+        token = jwtService.generateToken("octocat", "github", "https://avatars.example.com/u/1",
+                "octocat@example.com");
+    }
+
+    @Benchmark
+    public Claims parseToken() {
+        return jwtService.parseToken(token);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token);
+    }
+
+    @Benchmark
+    public Claims legacyFilterPath() {
+        Claims claims = Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+        if (claims.getExpiration().before(new Date())) {
+            return null;
+        }
+        return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Authentication authenticate() {
+        return jwtService.authenticate(token);
+    }
+
+    @Benchmark
+    public Authentication authenticateCached() {
+        return cachingJwtService.authenticate(token);
+    }
+}
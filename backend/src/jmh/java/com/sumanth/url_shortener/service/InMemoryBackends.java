@@ -0,0 +1,146 @@
+package com.sumanth.url_shortener.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import com.sumanth.url_shortener.model.Counter;
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.repository.UrlMappingRepository;
+
+/**
+ * Map-backed stand-ins for MongoDB and Redis, so the service benchmarks
+ * measure our code rather than the network. Only the calls the hot paths make
+ * are implemented.
+ */
+public final class InMemoryBackends {
+
+    private InMemoryBackends() {
+    }
+
+    public static UrlMappingRepository urlMappingRepository() {
+        Map<ByteBuffer, UrlMapping> byDigest = new ConcurrentHashMap<>();
+        Map<String, UrlMapping> byShortCode = new ConcurrentHashMap<>();
+
+        return (UrlMappingRepository) Proxy.newProxyInstance(
+                UrlMappingRepository.class.getClassLoader(),
+                new Class<?>[] { UrlMappingRepository.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByUrlDigest", "findFirstByUrlDigestOrUrlHash" ->
+                        Optional.ofNullable(byDigest.get(ByteBuffer.wrap((byte[]) args[0])));
+                    case "findByShortCodeAndDomain" ->
+                        Optional.ofNullable(byShortCode.get(ShortDomains.key((String) args[1], (String) args[0])));
+                    case "save" -> {
+                        UrlMapping mapping = (UrlMapping) args[0];
+                        byDigest.put(ByteBuffer.wrap(mapping.getUrlDigest()), mapping);
+                        byShortCode.put(ShortDomains.key(mapping.getDomain(), mapping.getShortCode()), mapping);
+                        yield mapping;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    /**
+     * A counter whose blocks come from an in-memory "document". Blocks are
+     * leased rarely enough that the mock's overhead does not show.
+     */
+    public static CounterService counterService() {
+        AtomicLong storedSeq = new AtomicLong();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Counter.class)))
+                .thenAnswer(invocation -> new Counter("url_sequence", storedSeq.addAndGet(1000)));
+        return new CounterService(mongoTemplate, 1000, 200);
+    }
+
+    /**
+     * @param retainWrites false makes Redis forget every SET, so every lookup
+     *                     misses and falls through to the repository.
+     */
+    public static StringRedisTemplate redisTemplate(boolean retainWrites) {
+        Map<String, String> values = new ConcurrentHashMap<>();
+
+        @SuppressWarnings("unchecked")
+        ValueOperations<String, String> valueOperations = (ValueOperations<String, String>) Proxy.newProxyInstance(
+                ValueOperations.class.getClassLoader(),
+                new Class<?>[] { ValueOperations.class },
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "get" -> values.get((String) args[0]);
+                    case "set" -> {
+                        if (retainWrites) {
+                            values.put((String) args[0], (String) args[1]);
+                        }
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        return new StringRedisTemplate() {
+            @Override
+            public ValueOperations<String, String> opsForValue() {
+                return valueOperations;
+            }
+        };
+    }
+
+    /**
+     * A filter that is never built, so it lets every code through.
+     */
+    public static ShortCodeFilter shortCodeFilter() {
+        return new ShortCodeFilter(null, null, false, 1000, 0.01, Duration.ofHours(1), Duration.ofMinutes(1), 1000);
+    }
+
+    /**
+     * Write-behind off, so shortenUrl saves synchronously into the map.
+     */
+    public static UrlMappingWriteBehind writeBehind() {
+        return new UrlMappingWriteBehind(null, null, null, shortCodeFilter(), false, "benchmark", 500, 20, 1000,
+                Duration.ofSeconds(30), Duration.ofHours(1));
+    }
+
+    /**
+     * No aliases, so generated codes are never skipped.
+     */
+    public static AliasReservations aliasReservations() {
+        return new AliasReservations(null, null, shortCodeFilter(), 3, 64, 5, List.of());
+    }
+
+    /**
+     * The benchmarks only create links without an expiry or click cap, which
+     * never reach it.
+     */
+    public static LinkLimits linkLimits() {
+        return new LinkLimits(null, null, null);
+    }
+
+    public static ClickRecorder clickRecorder() {
+        return new ClickRecorder() {
+            @Override
+            public void recordClick(String shortCode) {
+                // Clicks are not what these benchmarks measure
+            }
+
+            @Override
+            public Map<String, Object> stats() {
+                return Map.of();
+            }
+        };
+    }
+}
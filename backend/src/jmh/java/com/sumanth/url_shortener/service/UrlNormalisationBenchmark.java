@@ -0,0 +1,76 @@
+package com.sumanth.url_shortener.service;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sumanth.url_shortener.util.LegacyUrlNormalizer;
+import com.sumanth.url_shortener.util.UrlCanonicalizer;
+
+/**
+ * CPU cost of the pure parts of shortenUrl: normalising the URL and hashing it.
+ * Run with {@code -prof gc} to compare allocation per call as well.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlNormalisationBenchmark {
+
+    @Param({
+            "https://www.google.com",
+            "HTTP://Example.COM:80/a/./b/../c/index.html?utm_source=newsletter&utm_medium=email#top",
+            "https://shop.example.com/products/category/shoes/running/mens?size=10&color=blue&sort=price_asc&page=3" })
+    private String url;
+
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer(false);
+    private final UrlCanonicalizer sortingCanonicalizer = new UrlCanonicalizer(true);
+    private String normalised;
+
+    @Setup
+    public void setUp() {
+        normalised = canonicalizer.canonicalize(url);
+    }
+
+    @Benchmark
+    public String legacyNormalise() {
+        return LegacyUrlNormalizer.normalizeAndValidateUrl(url);
+    }
+
+    @Benchmark
+    public String normalise() {
+        return canonicalizer.canonicalize(url);
+    }
+
+    @Benchmark
+    public String normaliseSortingQuery() {
+        return sortingCanonicalizer.canonicalize(url);
+    }
+
+    @Benchmark
+    public byte[] hash() {
+        return UrlShortenService.digest(normalised);
+    }
+
+    @Benchmark
+    public String legacyHexHash() {
+        return UrlShortenService.legacyHash(UrlShortenService.digest(normalised));
+    }
+
+    @Benchmark
+    public byte[] normaliseAndHash() {
+        return UrlShortenService.digest(canonicalizer.canonicalize(url));
+    }
+}
@@ -0,0 +1,96 @@
+package com.sumanth.url_shortener.service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.util.SecureCodeGenerator;
+import com.sumanth.url_shortener.util.UrlCanonicalizer;
+
+/**
+ * End-to-end shortenUrl and expandUrl against {@link InMemoryBackends}.
+ * <p>
+ * The {@code tier} parameter chooses where expandUrl finds the code: the local
+ * cache, Redis (local cache disabled) or the repository (nothing cached).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UrlShortenServiceBenchmark {
+
+    private static final int HOT_CODES = 1024;
+
+    @Param({ "local", "redis", "database" })
+    private String tier;
+
+    private UrlShortenService service;
+    private String[] shortCodes;
+    private String existingUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        UrlCacheService urlCache = new UrlCacheService(
+                InMemoryBackends.redisTemplate(!"database".equals(tier)),
+                "local".equals(tier), 10_000, Duration.ofMinutes(10));
+        service = new UrlShortenService(
+                InMemoryBackends.urlMappingRepository(),
+                InMemoryBackends.counterService(),
+                urlCache,
+                InMemoryBackends.clickRecorder(),
+                InMemoryBackends.shortCodeFilter(),
+                new SecureCodeGenerator("benchmark_secret",
+                        "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ"),
+                new UrlCanonicalizer(),
+                InMemoryBackends.writeBehind(),
+                InMemoryBackends.aliasReservations(),
+                new ShortDomains(),
+                InMemoryBackends.linkLimits(),
+                new SimpleMeterRegistry(),
+                true);
+
+        shortCodes = new String[HOT_CODES];
+        for (int i = 0; i < HOT_CODES; i++) {
+            shortCodes[i] = service.shortenUrl("https://example.com/articles/" + i).getShortCode();
+            service.expandUrl(shortCodes[i], true);
+        }
+        existingUrl = "https://example.com/articles/7";
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        long next;
+    }
+
+    @Benchmark
+    public UrlMapping shortenNewUrl(Cursor cursor) {
+        return service.shortenUrl("https://example.com/new/" + cursor.next++ + "?ref=benchmark");
+    }
+
+    @Benchmark
+    public UrlMapping shortenExistingUrl() {
+        return service.shortenUrl(existingUrl);
+    }
+
+    @Benchmark
+    public UrlMapping expandUrl(Cursor cursor) {
+        return service.expandUrl(shortCodes[(int) (cursor.next++ & (HOT_CODES - 1))], true);
+    }
+}
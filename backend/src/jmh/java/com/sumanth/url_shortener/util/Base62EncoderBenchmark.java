@@ -0,0 +1,45 @@
+package com.sumanth.url_shortener.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Base62EncoderBenchmark {
+
+    @Param({ "1000", "56800235584", "9223372036854775807" })
+    private long value;
+
+    private final Base62Encoder encoder = new Base62Encoder();
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        encoded = Base62Encoder.encode(value);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Base62Encoder.encode(value);
+    }
+
+    @Benchmark
+    public long decode() {
+        return encoder.decode(encoded);
+    }
+}
@@ -0,0 +1,55 @@
+package com.sumanth.url_shortener.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the original BigInteger generator with both modes of the
+ * thread-local one. Run with -prof gc to see the allocation difference.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SecureCodeGeneratorBenchmark {
+
+    private static final String SECRET = "benchmark_secret";
+    private static final String ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+
+    private final LegacySecureCodeGenerator legacy = new LegacySecureCodeGenerator(SECRET, ALPHABET);
+    private final SecureCodeGenerator compat = new SecureCodeGenerator(SECRET, ALPHABET,
+            SecureCodeGenerator.Mode.COMPAT);
+    private final SecureCodeGenerator fast = new SecureCodeGenerator(SECRET, ALPHABET,
+            SecureCodeGenerator.Mode.FAST);
+
+    @State(Scope.Thread)
+    public static class Sequence {
+        long next = 1_000_000L;
+    }
+
+    @Benchmark
+    public String legacy(Sequence sequence) {
+        return legacy.generate(sequence.next++);
+    }
+
+    @Benchmark
+    public String compat(Sequence sequence) {
+        return compat.generate(sequence.next++);
+    }
+
+    @Benchmark
+    public String fast(Sequence sequence) {
+        return fast.generate(sequence.next++);
+    }
+}
@@ -2,11 +2,14 @@ package com.sumanth.url_shortener;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.data.mongo.MongoReactiveDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoReactiveAutoConfiguration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 import org.springframework.data.mongodb.config.EnableMongoAuditing;
 
-@SpringBootApplication
+// The reactive MongoDB client is only created with the reactive redirect server, see ReactiveMongoConfig
+@SpringBootApplication(exclude = { MongoReactiveAutoConfiguration.class, MongoReactiveDataAutoConfiguration.class })
 @EnableScheduling
 @EnableMongoAuditing
 public class UrlShortenerApplication {
@@ -0,0 +1,36 @@
+package com.sumanth.url_shortener.config;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Sizes the MongoDB connection pool explicitly instead of relying on the
+ * driver defaults.
+ * <p>
+ * With virtual threads a request no longer waits for a Tomcat worker, so it
+ * waits for a pooled connection instead. {@code max-wait} bounds that wait so
+ * an exhausted pool fails fast rather than piling up parked requests, and
+ * {@code max-connecting} stops a cold start from opening the whole pool at
+ * once. The Lettuce pool is configured under {@code spring.data.redis.lettuce.pool}.
+ */
+@Configuration
+public class MongoPoolConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPoolCustomizer(
+            @Value("${app.mongo.pool.max-size:100}") int maxSize,
+            @Value("${app.mongo.pool.min-size:0}") int minSize,
+            @Value("${app.mongo.pool.max-wait:2s}") Duration maxWait,
+            @Value("${app.mongo.pool.max-connecting:2}") int maxConnecting) {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool
+                .maxSize(maxSize)
+                .minSize(minSize)
+                .maxWaitTime(maxWait.toMillis(), TimeUnit.MILLISECONDS)
+                .maxConnecting(maxConnecting));
+    }
+}
@@ -0,0 +1,37 @@
+package com.sumanth.url_shortener.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.sumanth.url_shortener.controller.RateLimitFilter;
+import com.sumanth.url_shortener.security.JwtService;
+import com.sumanth.url_shortener.service.RateLimiter;
+
+/**
+ * Registers {@link RateLimitFilter} first of all servlet filters, ahead of
+ * {@link RedirectFilterConfig the redirect filter} and Spring Security.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilterConfig {
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter, JwtService jwtService,
+            @Value("${app.fast-redirect.max-code-length:64}") int maxCodeLength,
+            @Value("${app.fast-redirect.reserved:shorten,logout,login,error,actuator,oauth2,api,livez,readyz}")
+                    List<String> reserved,
+            @Value("${app.rate-limit.trust-forwarded-for:false}") boolean trustForwardedFor) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(rateLimiter, jwtService, maxCodeLength, reserved, trustForwardedFor));
+        registration.setName("rateLimitFilter");
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
@@ -0,0 +1,48 @@
+package com.sumanth.url_shortener.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.ReactiveMongoClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.SimpleReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+
+/**
+ * The reactive MongoDB client behind {@link ReactiveRedirectServer}.
+ * <p>
+ * Its auto-configuration is excluded, so the client and its connection pool
+ * only exist when the reactive server is on. It is built from the same
+ * settings and customizers as the blocking client, pool sizing included,
+ * and reads the same database.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.reactive-redirect.enabled", havingValue = "true")
+public class ReactiveMongoConfig {
+
+    @Bean
+    public MongoClient reactiveStreamsMongoClient(MongoClientSettings settings,
+            ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers) {
+        return new ReactiveMongoClientFactory(customizers.orderedStream().toList()).createMongoClient(settings);
+    }
+
+    @Bean
+    public ReactiveMongoTemplate reactiveMongoTemplate(MongoClient reactiveStreamsMongoClient,
+            MongoDatabaseFactory mongoDatabaseFactory, MongoMappingContext mappingContext,
+            MongoCustomConversions conversions) {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return new ReactiveMongoTemplate(new SimpleReactiveMongoDatabaseFactory(reactiveStreamsMongoClient,
+                mongoDatabaseFactory.getMongoDatabase().getName()), converter);
+    }
+}
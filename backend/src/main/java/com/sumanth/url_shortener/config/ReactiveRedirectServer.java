@@ -0,0 +1,67 @@
+package com.sumanth.url_shortener.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import com.sumanth.url_shortener.controller.ReactiveRedirectHandler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Serves redirects from a Reactor Netty server on its own port, next to the
+ * servlet stack, when {@code app.reactive-redirect.enabled} is set.
+ * <p>
+ * The server runs on a fixed pool of {@code event-loop-threads} event loops.
+ * Everything else, including the API and the JSON view of a short code, stays
+ * on the servlet port.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reactive-redirect.enabled", havingValue = "true")
+public class ReactiveRedirectServer {
+
+    private final ReactiveRedirectHandler handler;
+    private final int port;
+    private final int eventLoopThreads;
+
+    private LoopResources loops;
+    private DisposableServer server;
+
+    public ReactiveRedirectServer(ReactiveRedirectHandler handler,
+            @Value("${app.reactive-redirect.port:8081}") int port,
+            @Value("${app.reactive-redirect.event-loop-threads:0}") int eventLoopThreads) {
+        this.handler = handler;
+        this.port = port;
+        this.eventLoopThreads = eventLoopThreads > 0 ? eventLoopThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    @PostConstruct
+    public void start() {
+        loops = LoopResources.create("redirect", eventLoopThreads, true);
+        ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(
+                RouterFunctions.toHttpHandler(handler.routes()));
+        server = HttpServer.create()
+                .port(port)
+                .runOn(loops)
+                .handle(adapter)
+                .bindNow();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) {
+            server.disposeNow(Duration.ofSeconds(5));
+        }
+        if (loops != null) {
+            loops.disposeLater().block(Duration.ofSeconds(5));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.sumanth.url_shortener.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.sumanth.url_shortener.controller.RedirectFilter;
+import com.sumanth.url_shortener.service.ShortDomains;
+import com.sumanth.url_shortener.service.UrlShortenService;
+
+/**
+ * Registers {@link RedirectFilter} right after the rate limiter, ahead of
+ * every other servlet filter including Spring Security's, so plain redirects
+ * skip the security chain.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.fast-redirect.enabled", havingValue = "true", matchIfMissing = true)
+public class RedirectFilterConfig {
+
+    @Bean
+    public FilterRegistrationBean<RedirectFilter> redirectFilter(UrlShortenService urlShortenService,
+            ShortDomains shortDomains,
+            @Value("${app.fast-redirect.status:301}") int status,
+            @Value("${app.fast-redirect.max-code-length:64}") int maxCodeLength,
+            @Value("${app.fast-redirect.reserved:shorten,logout,login,error,actuator,oauth2,api,livez,readyz}")
+                    List<String> reserved) {
+        FilterRegistrationBean<RedirectFilter> registration = new FilterRegistrationBean<>(
+                new RedirectFilter(urlShortenService, shortDomains, status, maxCodeLength, reserved));
+        registration.setName("redirectFilter");
+        registration.addUrlPatterns("/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+}
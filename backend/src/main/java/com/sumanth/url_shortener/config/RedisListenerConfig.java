@@ -0,0 +1,24 @@
+package com.sumanth.url_shortener.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import com.sumanth.url_shortener.service.AliasReservations;
+import com.sumanth.url_shortener.service.ShortCodeFilter;
+
+@Configuration
+public class RedisListenerConfig {
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+            ShortCodeFilter shortCodeFilter, AliasReservations aliasReservations) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(shortCodeFilter, new ChannelTopic(ShortCodeFilter.CHANNEL));
+        container.addMessageListener(aliasReservations, new ChannelTopic(AliasReservations.CHANNEL));
+        return container;
+    }
+}
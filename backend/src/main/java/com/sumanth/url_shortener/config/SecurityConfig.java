@@ -58,6 +58,7 @@ public class SecurityConfig {
                                                                 "/login/oauth2/**",
                                                                 "/logout",
                                                                 "/shorten",
+                                                                "/shorten/batch",
                                                                 "/{shortCode}",
                                                                 "/{shortCode}/stats")
                                                 .permitAll()
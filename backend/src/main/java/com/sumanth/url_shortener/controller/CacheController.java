@@ -0,0 +1,36 @@
+package com.sumanth.url_shortener.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.sumanth.url_shortener.service.CacheWarmer;
+import com.sumanth.url_shortener.service.ShortCodeFilter;
+import com.sumanth.url_shortener.service.UrlCacheService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final UrlCacheService urlCache;
+    private final ShortCodeFilter shortCodeFilter;
+    private final CacheWarmer cacheWarmer;
+
+    public CacheController(UrlCacheService urlCache, ShortCodeFilter shortCodeFilter, CacheWarmer cacheWarmer) {
+        this.urlCache = urlCache;
+        this.shortCodeFilter = shortCodeFilter;
+        this.cacheWarmer = cacheWarmer;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(urlCache.stats());
+        stats.put("shortCodeFilter", shortCodeFilter.stats());
+        stats.put("warmUp", cacheWarmer.stats());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,39 @@
+package com.sumanth.url_shortener.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.sumanth.url_shortener.security.JwtService;
+import com.sumanth.url_shortener.service.UserLinksService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api")
+public class LinkController {
+
+    private final UserLinksService userLinksService;
+
+    public LinkController(UserLinksService userLinksService) {
+        this.userLinksService = userLinksService;
+    }
+
+    /**
+     * The signed-in user's links, newest first. Follow {@code nextCursor}
+     * until it is null to read them all.
+     */
+    @GetMapping("/links")
+    public ResponseEntity<?> links(Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        String userId = JwtService.userIdOf(authentication);
+        if (userId == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Not authenticated"));
+        }
+        return ResponseEntity.ok(userLinksService.page(userId, cursor, limit));
+    }
+}
@@ -0,0 +1,31 @@
+package com.sumanth.url_shortener.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.sumanth.url_shortener.service.ClickRecorder;
+import com.sumanth.url_shortener.service.UrlMappingWriteBehind;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/pipeline")
+public class PipelineController {
+
+    private final ClickRecorder clickRecorder;
+    private final UrlMappingWriteBehind writeBehind;
+
+    public PipelineController(ClickRecorder clickRecorder, UrlMappingWriteBehind writeBehind) {
+        this.clickRecorder = clickRecorder;
+        this.writeBehind = writeBehind;
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        return ResponseEntity.ok(Map.of(
+                "clickRecorder", clickRecorder.stats(),
+                "urlMappingWriteBehind", writeBehind.stats()));
+    }
+}
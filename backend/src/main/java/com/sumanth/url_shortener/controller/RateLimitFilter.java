@@ -0,0 +1,114 @@
+package com.sumanth.url_shortener.controller;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+
+import com.sumanth.url_shortener.security.JwtAuthenticationFilter;
+import com.sumanth.url_shortener.security.JwtService;
+import com.sumanth.url_shortener.service.RateLimiter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Applies {@link RateLimiter} to short-code lookups and to {@code /shorten}
+ * before anything else runs, so a rejected request costs no security chain,
+ * cache lookup or database call.
+ * <p>
+ * A client is the user id of a valid session token if there is one,
+ * otherwise its IP address. Behind a proxy that appends to
+ * {@code X-Forwarded-For}, set {@code trust-forwarded-for} so the last entry,
+ * the one the proxy wrote, is used instead of the proxy's own address.
+ * Refused requests get {@code 429 RATE_LIMITED} with a {@code Retry-After}.
+ */
+public class RateLimitFilter extends HttpFilter {
+
+    static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private final RateLimiter rateLimiter;
+    private final JwtService jwtService;
+    private final int maxCodeLength;
+    private final Set<String> reserved;
+    private final boolean trustForwardedFor;
+
+    public RateLimitFilter(RateLimiter rateLimiter, JwtService jwtService, int maxCodeLength,
+            Collection<String> reserved, boolean trustForwardedFor) {
+        this.rateLimiter = rateLimiter;
+        this.jwtService = jwtService;
+        this.maxCodeLength = maxCodeLength;
+        this.reserved = Set.copyOf(reserved);
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        RateLimiter.Scope scope = scopeOf(request);
+        if (scope == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterMillis = rateLimiter.acquire(scope, clientOf(request));
+        if (retryAfterMillis > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString((retryAfterMillis + 999) / 1000));
+            RedirectFilter.writeError(response, 429, "RATE_LIMITED", "Too many requests");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * @return the limit the request counts against, or null if it is not
+     *         limited.
+     */
+    RateLimiter.Scope scopeOf(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("POST".equals(method)) {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            if ("/shorten".equals(path)) {
+                return RateLimiter.Scope.SHORTEN;
+            }
+            // A batch can hold thousands of URLs, so it has a much smaller budget of its own
+            return "/shorten/batch".equals(path) ? RateLimiter.Scope.SHORTEN_BATCH : null;
+        }
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return RedirectFilter.pathCode(request, maxCodeLength, reserved) != null
+                    ? RateLimiter.Scope.REDIRECT
+                    : null;
+        }
+        return null;
+    }
+
+    String clientOf(HttpServletRequest request) {
+        return clientOf(jwtService, trustForwardedFor, JwtAuthenticationFilter.tokenOf(request),
+                request.getHeader(FORWARDED_FOR), request.getRemoteAddr());
+    }
+
+    /**
+     * Also used by {@link ReactiveRedirectHandler}, which has no servlet
+     * request.
+     */
+    static String clientOf(JwtService jwtService, boolean trustForwardedFor, String token, String forwardedFor,
+            String remoteAddr) {
+        if (token != null) {
+            String userId = JwtService.userIdOf(jwtService.authenticate(token));
+            if (userId != null) {
+                return "user:" + userId;
+            }
+        }
+        if (trustForwardedFor && forwardedFor != null) {
+            String last = forwardedFor.substring(forwardedFor.lastIndexOf(',') + 1).trim();
+            if (!last.isEmpty()) {
+                return "ip:" + last;
+            }
+        }
+        return "ip:" + remoteAddr;
+    }
+}
@@ -0,0 +1,216 @@
+package com.sumanth.url_shortener.controller;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.http.HttpCookie;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.sumanth.url_shortener.exception.ErrorResponse;
+import com.sumanth.url_shortener.exception.UrlExpiredException;
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.security.JwtService;
+import com.sumanth.url_shortener.service.CachedUrl;
+import com.sumanth.url_shortener.service.ClickRecorder;
+import com.sumanth.url_shortener.service.LinkLimits;
+import com.sumanth.url_shortener.service.RateLimiter;
+import com.sumanth.url_shortener.service.ShortCodeFilter;
+import com.sumanth.url_shortener.service.ShortDomains;
+import com.sumanth.url_shortener.service.UrlCacheService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking counterpart of {@link UrlController#expandUrl}.
+ * <p>
+ * The lookup order is the same (local tier, Redis, MongoDB), but every step
+ * is a reactive call, so a waiting redirect holds no thread. A Redis read
+ * slower than {@code redisTimeout}, or one that fails, falls through to
+ * MongoDB instead of stretching the tail. Recording the click never does I/O
+ * on the caller's thread with either {@link ClickRecorder}, so it is safe on
+ * the event loop.
+ * <p>
+ * Unless {@code app.rate-limit.enabled} is off, every lookup first counts
+ * against the {@link RateLimiter.Scope#REDIRECT} limit, with clients told
+ * apart as in {@link RateLimitFilter}.
+ * <p>
+ * Lookups are timed into the same {@code url.redirect} timer as
+ * {@link com.sumanth.url_shortener.service.UrlShortenService#expandUrl}, so
+ * both ports show up in one metric.
+ */
+@Component
+@ConditionalOnProperty(name = "app.reactive-redirect.enabled", havingValue = "true")
+public class ReactiveRedirectHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRedirectHandler.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final UrlCacheService urlCache;
+    private final ClickRecorder clickRecorder;
+    private final ShortCodeFilter shortCodeFilter;
+    private final ShortDomains shortDomains;
+    private final LinkLimits linkLimits;
+    private final RateLimiter rateLimiter;
+    private final JwtService jwtService;
+    private final boolean trustForwardedFor;
+    private final Duration redisTimeout;
+    private final Timer redirectFound;
+    private final Timer redirectNotFound;
+
+    public ReactiveRedirectHandler(ReactiveStringRedisTemplate redisTemplate, ReactiveMongoTemplate mongoTemplate,
+            UrlCacheService urlCache, ClickRecorder clickRecorder, ShortCodeFilter shortCodeFilter,
+            ShortDomains shortDomains, LinkLimits linkLimits, ObjectProvider<RateLimiter> rateLimiter,
+            JwtService jwtService,
+            @Value("${app.rate-limit.trust-forwarded-for:false}") boolean trustForwardedFor,
+            @Value("${app.reactive-redirect.redis-timeout:50ms}") Duration redisTimeout,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.urlCache = urlCache;
+        this.clickRecorder = clickRecorder;
+        this.shortCodeFilter = shortCodeFilter;
+        this.shortDomains = shortDomains;
+        this.linkLimits = linkLimits;
+        // Absent when app.rate-limit.enabled is off
+        this.rateLimiter = rateLimiter.getIfAvailable();
+        this.jwtService = jwtService;
+        this.trustForwardedFor = trustForwardedFor;
+        this.redisTimeout = redisTimeout;
+        this.redirectFound = Timer.builder("url.redirect").tag("result", "found").register(meterRegistry);
+        this.redirectNotFound = Timer.builder("url.redirect").tag("result", "not_found").register(meterRegistry);
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route(
+                RequestPredicates.GET("/{shortCode}").or(RequestPredicates.HEAD("/{shortCode}")),
+                this::redirect);
+    }
+
+    public Mono<ServerResponse> redirect(ServerRequest request) {
+        if (rateLimiter == null) {
+            return lookUp(request);
+        }
+        // Every sync-batch requests per client, acquire updates the Redis window, which blocks
+        return Mono.fromCallable(() -> rateLimiter.acquire(RateLimiter.Scope.REDIRECT, clientOf(request)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(retryAfterMillis -> retryAfterMillis > 0
+                        ? ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                                .header(HttpHeaders.RETRY_AFTER, Long.toString((retryAfterMillis + 999) / 1000))
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .bodyValue(new ErrorResponse("RATE_LIMITED", "Too many requests",
+                                        LocalDateTime.now()))
+                        : lookUp(request));
+    }
+
+    private Mono<ServerResponse> lookUp(ServerRequest request) {
+        long start = System.nanoTime();
+        String shortCode = request.pathVariable("shortCode");
+        String key = ShortDomains.key(shortDomains.resolve(request.uri().getHost()), shortCode);
+
+        // 1. Local tier, then Redis, then MongoDB; codes never issued skip all three
+        String cached = urlCache.getLocal(key);
+        Mono<String> longUrl;
+        if (cached != null) {
+            longUrl = Mono.just(cached);
+        } else if (!shortCodeFilter.mightExist(key)) {
+            longUrl = Mono.empty();
+        } else {
+            longUrl = fromRedis(key).switchIfEmpty(Mono.defer(() -> fromDatabase(key)));
+        }
+
+        return longUrl
+                .flatMap(value -> CachedUrl.isPlain(value)
+                        ? Mono.just(value)
+                        // Only links with an expiry or click cap; counting a capped click is a blocking call
+                        : Mono.fromCallable(() -> linkLimits.admit(key, shortCode, CachedUrl.decode(value)))
+                                .subscribeOn(Schedulers.boundedElastic()))
+                .flatMap(url -> {
+                    // 2. Record the click without waiting for it
+                    clickRecorder.recordClick(key);
+                    redirectFound.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return ServerResponse.status(HttpStatus.MOVED_PERMANENTLY)
+                            .header(HttpHeaders.LOCATION, url)
+                            .header(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.LOCATION)
+                            .build();
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    redirectNotFound.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return ServerResponse.status(HttpStatus.NOT_FOUND)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(new ErrorResponse("URL_NOT_FOUND",
+                                    "URL not found for short code: " + shortCode, LocalDateTime.now()));
+                }))
+                .onErrorResume(UrlExpiredException.class, e -> {
+                    redirectNotFound.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return ServerResponse.status(e.getStatus())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .bodyValue(new ErrorResponse(e.getErrorCode(), e.getMessage(), LocalDateTime.now()));
+                });
+    }
+
+    String clientOf(ServerRequest request) {
+        // The bearer token, or the jwt cookie, as JwtAuthenticationFilter.tokenOf reads them
+        String authorization = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+        String token;
+        if (authorization != null && authorization.startsWith("Bearer ")) {
+            token = authorization.substring(7);
+        } else {
+            HttpCookie cookie = request.cookies().getFirst("jwt");
+            token = cookie != null ? cookie.getValue() : null;
+        }
+        return RateLimitFilter.clientOf(jwtService, trustForwardedFor, token,
+                request.headers().firstHeader(RateLimitFilter.FORWARDED_FOR),
+                request.remoteAddress().map(address -> address.getAddress() != null
+                        ? address.getAddress().getHostAddress()
+                        : address.getHostString()).orElse(null));
+    }
+
+    private Mono<String> fromRedis(String key) {
+        return redisTemplate.opsForValue().get(key)
+                .timeout(redisTimeout)
+                .doOnNext(url -> urlCache.putLocal(key, url))
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private Mono<String> fromDatabase(String key) {
+        Query query = new Query(ShortDomains.criteria(key));
+        query.fields().include("longUrl", "expiresAt", "maxClicks", "clickCount");
+
+        return mongoTemplate.findOne(query, UrlMapping.class)
+                .doOnNext(mapping -> {
+                    if (mapping.getMaxClicks() != null) {
+                        Schedulers.boundedElastic().schedule(() -> linkLimits.seed(key, mapping));
+                    }
+                })
+                .map(CachedUrl::encode)
+                .switchIfEmpty(Mono.fromRunnable(() -> shortCodeFilter.recordMissing(key)))
+                .doOnNext(url -> {
+                    urlCache.putLocal(key, url);
+                    // Fill Redis in the background; a failure only costs the next lookup a DB read
+                    redisTemplate.opsForValue().set(key, url, urlCache.redisTtl(url))
+                            .subscribe(ok -> {
+                            }, e -> logger.warn("Failed to cache {}: {}", key, e.getMessage()));
+                });
+    }
+}
@@ -0,0 +1,158 @@
+package com.sumanth.url_shortener.controller;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.sumanth.url_shortener.exception.UrlShortenerException;
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.service.ShortDomains;
+import com.sumanth.url_shortener.service.UrlShortenService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Answers {@code GET /{shortCode}} before the request reaches Spring Security
+ * or the DispatcherServlet.
+ * <p>
+ * A redirect needs no principal, session, CORS processing or message
+ * converter, so this filter runs first and writes the response itself: the
+ * status, the Location header and a constant Access-Control-Expose-Headers
+ * value, or the same error body {@link UrlController#expandUrl} would send.
+ * Everything else continues down the normal chain: other paths, reserved
+ * names such as {@code /logout}, lookups that ask for JSON, and cross-origin
+ * requests, which still need the CORS headers.
+ */
+public class RedirectFilter extends HttpFilter {
+
+    private static final String JSON = MediaType.APPLICATION_JSON_VALUE;
+
+    private final UrlShortenService urlShortenService;
+    private final ShortDomains shortDomains;
+    private final int redirectStatus;
+    private final int maxCodeLength;
+    private final Set<String> reserved;
+
+    public RedirectFilter(UrlShortenService urlShortenService, ShortDomains shortDomains, int redirectStatus,
+            int maxCodeLength, Collection<String> reserved) {
+        if (redirectStatus != 301 && redirectStatus != 302 && redirectStatus != 307 && redirectStatus != 308) {
+            throw new IllegalArgumentException("Redirect status must be 301, 302, 307 or 308");
+        }
+        this.urlShortenService = urlShortenService;
+        this.shortDomains = shortDomains;
+        this.redirectStatus = redirectStatus;
+        this.maxCodeLength = maxCodeLength;
+        this.reserved = Set.copyOf(reserved);
+    }
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        String shortCode = shortCodeOf(request);
+        if (shortCode == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        UrlMapping mapping;
+        try {
+            mapping = urlShortenService.expandUrl(shortDomains.resolve(request.getServerName()), shortCode, true);
+        } catch (UrlShortenerException e) {
+            writeError(response, e.getStatus().value(), e.getErrorCode(), e.getMessage());
+            return;
+        } catch (RuntimeException e) {
+            writeError(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "INTERNAL_SERVER_ERROR",
+                    "An unexpected error occurred");
+            return;
+        }
+
+        response.setStatus(redirectStatus);
+        response.setHeader(HttpHeaders.LOCATION, mapping.getLongUrl());
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.LOCATION);
+        response.setContentLength(0);
+    }
+
+    /**
+     * @return the code if this request is a plain redirect this filter serves,
+     *         otherwise null.
+     */
+    String shortCodeOf(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return null;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if ((accept != null && accept.contains(JSON)) || request.getHeader(HttpHeaders.ORIGIN) != null) {
+            return null;
+        }
+        return pathCode(request, maxCodeLength, reserved);
+    }
+
+    /**
+     * @return the code if the path is a single segment of code characters
+     *         that is not a reserved name, otherwise null.
+     */
+    static String pathCode(HttpServletRequest request, int maxCodeLength, Set<String> reserved) {
+        String path = request.getRequestURI();
+        int start = request.getContextPath().length() + 1;
+        int length = path.length() - start;
+        if (length < 1 || length > maxCodeLength || path.charAt(start - 1) != '/') {
+            return null;
+        }
+        for (int i = start; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_')) {
+                return null;
+            }
+        }
+        String shortCode = path.substring(start);
+        return reserved.contains(shortCode) ? null : shortCode;
+    }
+
+    /**
+     * Writes the {@link com.sumanth.url_shortener.exception.ErrorResponse}
+     * JSON without going through Jackson.
+     */
+    static void writeError(HttpServletResponse response, int status, String errorCode, String message)
+            throws IOException {
+        String body = "{\"errorCode\":\"" + escape(errorCode)
+                + "\",\"message\":\"" + escape(message)
+                + "\",\"timestamp\":\"" + DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now())
+                + "\"}";
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        response.setStatus(status);
+        response.setContentType(JSON);
+        response.setContentLength(bytes.length);
+        response.getOutputStream().write(bytes);
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(value.length() + 8).append(value, 0, i);
+                }
+                escaped.append(c == '"' || c == '\\' ? "\\" + c : String.format("\\u%04x", (int) c));
+            } else if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+}
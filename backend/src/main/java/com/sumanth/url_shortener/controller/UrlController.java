@@ -1,47 +1,151 @@
 package com.sumanth.url_shortener.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sumanth.url_shortener.controller.dto.AliasAvailabilityDto;
+import com.sumanth.url_shortener.controller.dto.BulkShortenResultDto;
+import com.sumanth.url_shortener.controller.dto.ClickTimeSeriesDto;
+import com.sumanth.url_shortener.controller.dto.ResolvedUrlDto;
 import com.sumanth.url_shortener.controller.dto.ShortUrlDto;
 import com.sumanth.url_shortener.controller.dto.UrlRequestDto;
+import com.sumanth.url_shortener.exception.InvalidTimeRangeException;
+import com.sumanth.url_shortener.exception.InvalidUrlException;
 import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.security.JwtService;
+import com.sumanth.url_shortener.service.AliasReservations;
+import com.sumanth.url_shortener.service.BulkShortenService;
+import com.sumanth.url_shortener.service.ClickGranularity;
+import com.sumanth.url_shortener.service.ClickStatsService;
+import com.sumanth.url_shortener.service.ClickTimeSeriesService;
+import com.sumanth.url_shortener.service.ShortDomains;
 import com.sumanth.url_shortener.service.UrlShortenService;
 
 @RestController
 @RequestMapping
 public class UrlController {
 
+    private static final byte[] NEWLINE = { '\n' };
+
     private UrlShortenService urlShortenService;
+    private BulkShortenService bulkShortenService;
+    private ClickStatsService clickStatsService;
+    private ClickTimeSeriesService clickTimeSeriesService;
+    private AliasReservations aliasReservations;
+    private ShortDomains shortDomains;
+    private ObjectMapper objectMapper;
 
-    public UrlController(UrlShortenService urlShortenService) {
+    public UrlController(UrlShortenService urlShortenService, BulkShortenService bulkShortenService,
+            ClickStatsService clickStatsService, ClickTimeSeriesService clickTimeSeriesService,
+            AliasReservations aliasReservations, ShortDomains shortDomains, ObjectMapper objectMapper) {
         this.urlShortenService = urlShortenService;
+        this.bulkShortenService = bulkShortenService;
+        this.clickStatsService = clickStatsService;
+        this.clickTimeSeriesService = clickTimeSeriesService;
+        this.aliasReservations = aliasReservations;
+        this.shortDomains = shortDomains;
+        this.objectMapper = objectMapper;
 
     }
 
     @PostMapping("/shorten")
-    public ResponseEntity<?> shortenUrl(@RequestBody UrlRequestDto request) {
-        UrlMapping urlMapping = urlShortenService.shortenUrl(request.getLongUrl());
+    public ResponseEntity<?> shortenUrl(@RequestBody UrlRequestDto request, Authentication authentication) {
+        UrlMapping urlMapping = urlShortenService.shortenUrl(request.getLongUrl(), request.getAlias(),
+                request.getDomain(), request.getExpiresAt(), request.getMaxClicks(),
+                JwtService.userIdOf(authentication));
         return ResponseEntity.ok(new ShortUrlDto(urlMapping.getShortCode()));
     }
 
+    /**
+     * Lets the UI check an alias while it is typed; suggests free variants
+     * when it is taken.
+     */
+    @GetMapping("/aliases/{alias}")
+    public ResponseEntity<AliasAvailabilityDto> checkAlias(@PathVariable String alias,
+            @RequestParam(required = false) String domain) {
+        return ResponseEntity.ok(aliasReservations.check(shortDomains.require(domain), alias));
+    }
+
+    /**
+     * Accepts a JSON array or newline-delimited JSON; each item is either the
+     * URL string or an object with a {@code longUrl}. One NDJSON result line is
+     * written per item, in input order, flushed after every chunk.
+     */
+    @PostMapping(value = "/shorten/batch", consumes = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public void shortenBatch(HttpServletRequest request, HttpServletResponse response,
+            Authentication authentication) throws IOException {
+        MappingIterator<JsonNode> items = objectMapper.readerFor(JsonNode.class).readValues(request.getInputStream());
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        bulkShortenService.shortenAll(longUrls(items), JwtService.userIdOf(authentication), results -> {
+            for (BulkShortenResultDto result : results) {
+                out.write(objectMapper.writeValueAsBytes(result));
+                out.write(NEWLINE);
+            }
+            out.flush();
+        });
+    }
+
+    private static Iterator<String> longUrls(MappingIterator<JsonNode> items) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return items.hasNext();
+                } catch (RuntimeException e) {
+                    throw new InvalidUrlException("Malformed batch body: " + e.getMessage());
+                }
+            }
+
+            @Override
+            public String next() {
+                JsonNode item;
+                try {
+                    item = items.next();
+                } catch (RuntimeException e) {
+                    throw new InvalidUrlException("Malformed batch body: " + e.getMessage());
+                }
+                return item.isTextual() ? item.asText() : item.path("longUrl").asText(null);
+            }
+        };
+    }
+
     @GetMapping(value = "/{shortCode}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<UrlMapping> getUrlJson(@PathVariable String shortCode) {
-        UrlMapping urlMapping = urlShortenService.expandUrl(shortCode, true);
-        return ResponseEntity.ok(urlMapping);
+    public ResponseEntity<ResolvedUrlDto> getUrlJson(@PathVariable String shortCode, HttpServletRequest request) {
+        String domain = domainOf(request);
+        UrlMapping urlMapping = urlShortenService.expandUrl(domain, shortCode, true);
+        // A cached lookup only carries the URL; owner and limits stay private anyway
+        return ResponseEntity.ok(new ResolvedUrlDto(shortCode, domain, urlMapping.getLongUrl()));
     }
 
     @GetMapping("/{shortCode}")
-    public ResponseEntity<Void> expandUrl(@PathVariable String shortCode) {
-        UrlMapping urlMapping = urlShortenService.expandUrl(shortCode, true);
+    public ResponseEntity<Void> expandUrl(@PathVariable String shortCode, HttpServletRequest request) {
+        UrlMapping urlMapping = urlShortenService.expandUrl(domainOf(request), shortCode, true);
         return ResponseEntity.status(HttpStatus.MOVED_PERMANENTLY)
                 .header(HttpHeaders.LOCATION, urlMapping.getLongUrl())
                 .header(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS, HttpHeaders.LOCATION)
@@ -49,12 +153,30 @@ public class UrlController {
     }
 
     @GetMapping("/{shortCode}/stats")
-    public ResponseEntity<Long> getClickCount(@PathVariable String shortCode) {
-        UrlMapping urlMapping = urlShortenService.expandUrl(shortCode, false);
-        if (urlMapping == null) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<Long> getClickCount(@PathVariable String shortCode, HttpServletRequest request) {
+        return ResponseEntity.ok(clickStatsService.getClickCount(ShortDomains.key(domainOf(request), shortCode)));
+    }
+
+    @GetMapping("/{shortCode}/stats/timeseries")
+    public ResponseEntity<ClickTimeSeriesDto> getClickTimeSeries(@PathVariable String shortCode,
+            @RequestParam(defaultValue = "hour") String granularity,
+            @RequestParam(required = false) Instant from,
+            @RequestParam(required = false) Instant to,
+            HttpServletRequest request) {
+        ClickGranularity level;
+        try {
+            level = ClickGranularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidTimeRangeException("Granularity must be one of minute, hour or day");
         }
-        return ResponseEntity.ok(urlMapping.getClickCount());
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        return ResponseEntity.ok(clickTimeSeriesService.getTimeSeries(
+                ShortDomains.key(domainOf(request), shortCode), level, start, end));
+    }
+
+    private String domainOf(HttpServletRequest request) {
+        return shortDomains.resolve(request.getServerName());
     }
 
 }
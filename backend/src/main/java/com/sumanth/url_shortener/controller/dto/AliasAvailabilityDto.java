@@ -0,0 +1,17 @@
+package com.sumanth.url_shortener.controller.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AliasAvailabilityDto {
+    private String alias;
+    private String domain;
+    private boolean available;
+    private List<String> suggestions;
+}
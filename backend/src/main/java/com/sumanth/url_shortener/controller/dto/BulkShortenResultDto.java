@@ -0,0 +1,19 @@
+package com.sumanth.url_shortener.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkShortenResultDto {
+    private int index;
+    private String longUrl;
+    private String shortUrl;
+    private Boolean created;
+    private String error;
+}
@@ -0,0 +1,27 @@
+package com.sumanth.url_shortener.controller.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClickTimeSeriesDto {
+    private String shortCode;
+    private String granularity;
+    private Instant from;
+    private Instant to;
+    private List<Point> points;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        private Instant time;
+        private long clicks;
+    }
+}
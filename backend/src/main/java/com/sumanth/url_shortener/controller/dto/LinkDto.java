@@ -0,0 +1,21 @@
+package com.sumanth.url_shortener.controller.dto;
+
+import java.time.Instant;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LinkDto {
+    private String shortCode;
+    private String domain;
+    private String longUrl;
+    private Instant createdAt;
+    private Instant expiresAt;
+    private Long maxClicks;
+    private long clickCount;
+    private boolean custom;
+}
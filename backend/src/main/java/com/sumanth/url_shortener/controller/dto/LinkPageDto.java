@@ -0,0 +1,16 @@
+package com.sumanth.url_shortener.controller.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LinkPageDto {
+    private List<LinkDto> links;
+    /** Pass back as {@code cursor} for the next page; null on the last one. */
+    private String nextCursor;
+}
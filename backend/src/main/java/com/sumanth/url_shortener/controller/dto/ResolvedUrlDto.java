@@ -0,0 +1,17 @@
+package com.sumanth.url_shortener.controller.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResolvedUrlDto {
+    private String shortCode;
+    private String domain;
+    private String longUrl;
+}
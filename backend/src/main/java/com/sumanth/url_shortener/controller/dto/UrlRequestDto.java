@@ -1,5 +1,7 @@
 package com.sumanth.url_shortener.controller.dto;
 
+import java.time.Instant;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -9,4 +11,8 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class UrlRequestDto {
     private String longUrl;
+    private String alias;
+    private String domain;
+    private Instant expiresAt;
+    private Long maxClicks;
 }
@@ -0,0 +1,9 @@
+package com.sumanth.url_shortener.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class AliasUnavailableException extends UrlShortenerException {
+    public AliasUnavailableException(String alias) {
+        super("Alias is already taken: " + alias, "ALIAS_UNAVAILABLE", HttpStatus.CONFLICT);
+    }
+}
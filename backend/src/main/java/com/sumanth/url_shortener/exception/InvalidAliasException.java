@@ -0,0 +1,9 @@
+package com.sumanth.url_shortener.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidAliasException extends UrlShortenerException {
+    public InvalidAliasException(String message) {
+        super(message, "INVALID_ALIAS", HttpStatus.BAD_REQUEST);
+    }
+}
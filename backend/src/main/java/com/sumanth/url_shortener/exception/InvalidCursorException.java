@@ -0,0 +1,9 @@
+package com.sumanth.url_shortener.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidCursorException extends UrlShortenerException {
+    public InvalidCursorException(String message) {
+        super(message, "INVALID_CURSOR", HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,9 @@
+package com.sumanth.url_shortener.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidExpiryException extends UrlShortenerException {
+    public InvalidExpiryException(String message) {
+        super(message, "INVALID_EXPIRY", HttpStatus.BAD_REQUEST);
+    }
+}
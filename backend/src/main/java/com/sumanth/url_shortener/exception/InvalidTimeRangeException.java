@@ -0,0 +1,9 @@
+package com.sumanth.url_shortener.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidTimeRangeException extends UrlShortenerException {
+    public InvalidTimeRangeException(String message) {
+        super(message, "INVALID_TIME_RANGE", HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,9 @@
+package com.sumanth.url_shortener.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class UrlExpiredException extends UrlShortenerException {
+    public UrlExpiredException(String shortCode) {
+        super("URL has expired for short code: " + shortCode, "URL_EXPIRED", HttpStatus.GONE);
+    }
+}
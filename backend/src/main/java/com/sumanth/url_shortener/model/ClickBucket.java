@@ -0,0 +1,44 @@
+package com.sumanth.url_shortener.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Click counts for one short code over one bucket period.
+ * <p>
+ * Minute buckets cover an hour (slots 0-59), hour buckets a day (0-23) and
+ * day buckets a month (1-31). Slots are only written once they have clicks.
+ * Finer buckets carry an {@code expireAt} so MongoDB's TTL monitor drops them
+ * once only the coarser rollups are worth keeping.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "click_buckets")
+@CompoundIndex(def = "{'shortCode': 1, 'granularity': 1, 'start': 1}")
+public class ClickBucket {
+    @Id
+    private String id;
+
+    private String shortCode;
+    private String granularity;
+    private Instant start;
+
+    @Field("c")
+    private Map<String, Long> counts;
+
+    private long total;
+
+    @Indexed(expireAfter = "0s")
+    private Instant expireAt;
+}
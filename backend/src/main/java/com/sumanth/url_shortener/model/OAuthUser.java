@@ -12,4 +12,5 @@ public class OAuthUser {
     private String email;
     private String avatar;
     private String provider;
+    private String id;
 }
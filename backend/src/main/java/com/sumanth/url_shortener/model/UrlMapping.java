@@ -3,6 +3,7 @@ package com.sumanth.url_shortener.model;
 import java.time.Instant;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -14,21 +15,57 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "url_mappings")
+@CompoundIndex(name = "shortCode_domain", def = "{'shortCode': 1, 'domain': 1}", unique = true)
 public class UrlMapping {
     @Id
     private String id;
 
     private String longUrl;
 
-    @Indexed(unique = true)
+    /**
+     * Hex SHA-256 of the normalised URL, only on documents written before
+     * {@link #urlDigest} existed and not yet migrated.
+     */
+    @Indexed(unique = true, sparse = true)
     private String urlHash;
 
-    @Indexed(unique = true)
+    /**
+     * Raw 32-byte SHA-256 of the normalised URL, stored as BSON binary.
+     */
+    @Indexed(unique = true, sparse = true)
+    private byte[] urlDigest;
+
     private String shortCode;
     private Instant createdAt;
     private Instant updatedAt;
     private long clickCount;
 
+    /**
+     * Branded host the code belongs to; null for the default domain.
+     */
+    private String domain;
+
+    /**
+     * True if the short code is an alias the user chose.
+     */
+    private boolean custom;
+
+    /**
+     * When the link stops redirecting; null if it never does. The TTL index
+     * on this field deletes the mapping shortly after.
+     */
+    private Instant expiresAt;
+
+    /**
+     * Redirects allowed in total; null if unlimited.
+     */
+    private Long maxClicks;
+
+    /**
+     * Id of the {@link User} who created the link; null for anonymous links.
+     */
+    private String ownerId;
+
     public String getShortCode() {
         return shortCode;
     }
@@ -1,5 +1,7 @@
 package com.sumanth.url_shortener.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -10,8 +12,20 @@ import com.sumanth.url_shortener.model.UrlMapping;
 @Repository
 public interface UrlMappingRepository extends MongoRepository<UrlMapping, String> {
 
-    Optional<UrlMapping> findByUrlHash(String urlHash);
+    Optional<UrlMapping> findByUrlDigest(byte[] urlDigest);
 
-    Optional<UrlMapping> findByShortCode(String shortCode);
+    /**
+     * Also matches documents that still carry the legacy hex {@code urlHash}.
+     */
+    Optional<UrlMapping> findFirstByUrlDigestOrUrlHash(byte[] urlDigest, String urlHash);
+
+    /**
+     * A null domain matches the default domain, whose mappings have none.
+     */
+    Optional<UrlMapping> findByShortCodeAndDomain(String shortCode, String domain);
+
+    List<UrlMapping> findByUrlDigestIn(Collection<byte[]> urlDigests);
+
+    List<UrlMapping> findByUrlDigestInOrUrlHashIn(Collection<byte[]> urlDigests, Collection<String> urlHashes);
 
 }
@@ -1,19 +1,16 @@
 package com.sumanth.url_shortener.security;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.Map;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -29,36 +26,32 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
+        String token = tokenOf(request);
+        if (token != null) {
+            // One signature check per token, not per request
+            Authentication auth = jwtService.authenticate(token);
+            if (auth != null) {
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * @return the bearer token, or the {@code jwt} cookie, or null.
+     */
+    public static String tokenOf(HttpServletRequest request) {
         String token = extractTokenFromHeader(request);
 
         // Fallback to cookie for backwards compatibility / direct browser access
         if (token == null) {
             token = extractTokenFromCookie(request);
         }
-
-        if (token != null && jwtService.isTokenValid(token)) {
-            Claims claims = jwtService.parseToken(token);
-            String username = claims.getSubject();
-            String provider = claims.get("provider", String.class);
-            String avatar = claims.get("avatar", String.class);
-            String email = claims.get("email", String.class);
-
-            Map<String, Object> details = Map.of(
-                    "username", username,
-                    "provider", provider != null ? provider : "",
-                    "avatar", avatar != null ? avatar : "",
-                    "email", email != null ? email : "");
-
-            UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(username, null,
-                    Collections.emptyList());
-            auth.setDetails(details);
-            SecurityContextHolder.getContext().setAuthentication(auth);
-        }
-
-        filterChain.doFilter(request, response);
+        return token;
     }
 
-    private String extractTokenFromHeader(HttpServletRequest request) {
+    private static String extractTokenFromHeader(HttpServletRequest request) {
         String header = request.getHeader("Authorization");
         if (header != null && header.startsWith("Bearer ")) {
             return header.substring(7);
@@ -66,7 +59,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         return null;
     }
 
-    private String extractTokenFromCookie(HttpServletRequest request) {
+    private static String extractTokenFromCookie(HttpServletRequest request) {
         if (request.getCookies() == null)
             return null;
         for (Cookie cookie : request.getCookies()) {
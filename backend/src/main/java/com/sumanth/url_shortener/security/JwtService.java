@@ -1,36 +1,107 @@
 package com.sumanth.url_shortener.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Issues and verifies the session JWTs.
+ * <p>
+ * Verification uses one parser built at startup. Tokens that verified are
+ * kept, keyed by their SHA-256, together with the {@link Authentication}
+ * built from them, until the token's own expiry or until {@code cache-max-size}
+ * pushes them out; a dashboard sending the same cookie on every request then
+ * pays for one hash instead of an HMAC check and a JSON parse. Invalid tokens
+ * are never cached.
+ */
 @Service
 public class JwtService {
 
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not found", e);
+        }
+    });
+
+    private static final String USER_ID_CLAIM = "uid";
+
     private final Key signingKey;
     private final long expirationMs;
+    private final JwtParser parser;
+    private final Cache<ByteBuffer, VerifiedToken> verifiedTokens;
+
+    private record VerifiedToken(Authentication authentication, long expiresAtMillis) {
+    }
+
+    /**
+     * Without the verified-token cache.
+     */
+    public JwtService(String secret, long expirationMs) {
+        this(secret, expirationMs, 0);
+    }
 
+    @Autowired
     public JwtService(
             @Value("${jwt.secret}") String secret,
-            @Value("${jwt.expiration-ms:86400000}") long expirationMs) {
+            @Value("${jwt.expiration-ms:86400000}") long expirationMs,
+            @Value("${jwt.cache-max-size:10000}") long cacheMaxSize) {
         this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
         this.expirationMs = expirationMs;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.verifiedTokens = cacheMaxSize > 0
+                ? Caffeine.newBuilder()
+                        .maximumSize(cacheMaxSize)
+                        .expireAfter(Expiry.creating((ByteBuffer key, VerifiedToken token) -> Duration.ofMillis(
+                                Math.max(0, token.expiresAtMillis() - System.currentTimeMillis()))))
+                        .build()
+                : null;
     }
 
     public String generateToken(String username, String provider, String avatar, String email) {
+        return generateToken(username, provider, avatar, email, null);
+    }
+
+    /**
+     * @param userId id of the stored {@code User}; links shortened with the
+     *               token are owned by it. Null for a token without one.
+     */
+    public String generateToken(String username, String provider, String avatar, String email, String userId) {
+        Map<String, Object> claims = new HashMap<>(Map.of(
+                "provider", provider,
+                "avatar", avatar != null ? avatar : "",
+                "email", email != null ? email : ""));
+        if (userId != null) {
+            claims.put(USER_ID_CLAIM, userId);
+        }
         return Jwts.builder()
                 .setSubject(username)
-                .addClaims(Map.of(
-                        "provider", provider,
-                        "avatar", avatar != null ? avatar : "",
-                        "email", email != null ? email : ""))
+                .addClaims(claims)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expirationMs))
                 .signWith(signingKey, SignatureAlgorithm.HS256)
@@ -38,11 +109,7 @@ public class JwtService {
     }
 
     public Claims parseToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(signingKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public boolean isTokenValid(String token) {
@@ -53,4 +120,75 @@ public class JwtService {
             return false;
         }
     }
+
+    /**
+     * Verifies the token once and builds the request's {@link Authentication},
+     * or returns the one built when the same token was last seen. The returned
+     * object may be shared between requests and must not be modified.
+     *
+     * @return null if the token is invalid or expired.
+     */
+    public Authentication authenticate(String token) {
+        if (verifiedTokens == null) {
+            VerifiedToken verified = verify(token);
+            return verified != null ? verified.authentication() : null;
+        }
+
+        ByteBuffer key = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+        VerifiedToken cached = verifiedTokens.getIfPresent(key);
+        if (cached != null) {
+            return cached.authentication();
+        }
+        VerifiedToken verified = verify(token);
+        if (verified == null) {
+            return null;
+        }
+        verifiedTokens.put(key, verified);
+        return verified.authentication();
+    }
+
+    private VerifiedToken verify(String token) {
+        Claims claims;
+        try {
+            claims = parseToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        Date expiration = claims.getExpiration();
+        if (expiration == null || expiration.before(new Date())) {
+            return null;
+        }
+
+        String username = claims.getSubject();
+        String provider = claims.get("provider", String.class);
+        String avatar = claims.get("avatar", String.class);
+        String email = claims.get("email", String.class);
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+
+        Map<String, Object> details = new HashMap<>(Map.of(
+                "username", username,
+                "provider", provider != null ? provider : "",
+                "avatar", avatar != null ? avatar : "",
+                "email", email != null ? email : ""));
+        if (userId != null) {
+            details.put("userId", userId);
+        }
+
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(username, null,
+                Collections.emptyList());
+        auth.setDetails(Collections.unmodifiableMap(details));
+        return new VerifiedToken(auth, expiration.getTime());
+    }
+
+    /**
+     * @return the id of the signed-in user, or null for an anonymous request
+     *         or a token issued before tokens carried one.
+     */
+    public static String userIdOf(Authentication authentication) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getDetails() instanceof Map<?, ?> details)) {
+            return null;
+        }
+        return details.get("userId") instanceof String userId ? userId : null;
+    }
 }
@@ -45,7 +45,8 @@ public class OAuth2LoginSuccessHandler implements AuthenticationSuccessHandler {
                 oAuthUser.getUsername(),
                 oAuthUser.getProvider(),
                 oAuthUser.getAvatar(),
-                oAuthUser.getEmail());
+                oAuthUser.getEmail(),
+                oAuthUser.getId());
 
         // Redirect to frontend with token as a query parameter.
         // The frontend will extract it, store in localStorage, and clear the URL.
@@ -79,6 +80,6 @@ public class OAuth2LoginSuccessHandler implements AuthenticationSuccessHandler {
             }
             return extracted;
         }
-        return new OAuthUser("Unknown", "", "", "unknown");
+        return new OAuthUser("Unknown", "", "", "unknown", null);
     }
 }
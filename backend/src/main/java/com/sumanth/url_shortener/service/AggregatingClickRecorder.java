@@ -0,0 +1,175 @@
+package com.sumanth.url_shortener.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Click accounting without one stream entry per click.
+ * <p>
+ * Each instance counts clicks per code in striped {@link LongAdder}s and
+ * periodically pushes the deltas into the {@value #COUNTS_KEY} hash with one
+ * pipelined batch of HINCRBYs. {@link ClickCountFlusher} later moves the hash
+ * into MongoDB. A viral link costs one hash field instead of one stream entry
+ * per click.
+ */
+@Service
+@ConditionalOnProperty(name = "app.clicks.mode", havingValue = "aggregate")
+public class AggregatingClickRecorder implements ClickRecorder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AggregatingClickRecorder.class);
+
+    static final String COUNTS_KEY = "url:click:counts";
+    private static final byte[] RAW_COUNTS_KEY = COUNTS_KEY.getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ConcurrentHashMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public AggregatingClickRecorder(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void recordClick(String shortCode) {
+        add(shortCode, 1);
+        recorded.increment();
+    }
+
+    private void add(String shortCode, long clicks) {
+        LongAdder adder = counters.computeIfAbsent(shortCode, k -> new LongAdder());
+        adder.add(clicks);
+        // A flush may have dropped the adder as idle before the add landed; move
+        // what it has not collected yet to the adder now in the map
+        while (counters.get(shortCode) != adder) {
+            long stranded = adder.sumThenReset();
+            if (stranded == 0) {
+                return;
+            }
+            adder = counters.computeIfAbsent(shortCode, k -> new LongAdder());
+            adder.add(stranded);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.clicks.aggregate.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        Map<String, Long> deltas = takeDeltas();
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, Long> entry : deltas.entrySet()) {
+                    connection.hashCommands().hIncrBy(RAW_COUNTS_KEY,
+                            entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue());
+                }
+                return null;
+            });
+            flushed.add(sum(deltas));
+        } catch (Exception e) {
+            // Put the deltas back so the next flush retries them
+            deltas.forEach(this::add);
+            failed.increment();
+            logger.warn("Failed to flush {} click counters: {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    private Map<String, Long> takeDeltas() {
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        List<Map.Entry<String, LongAdder>> idle = new ArrayList<>();
+
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            long delta = entry.getValue().sumThenReset();
+            if (delta > 0) {
+                deltas.put(entry.getKey(), delta);
+            } else {
+                idle.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        // Drop codes that saw no clicks since the last flush so the map stays small.
+        // A click that lands on the adder while it is being removed is collected
+        // here, or moved to a fresh adder by the recording thread (see add).
+        for (Map.Entry<String, LongAdder> entry : idle) {
+            if (counters.remove(entry.getKey(), entry.getValue())) {
+                long late = entry.getValue().sumThenReset();
+                if (late > 0) {
+                    deltas.merge(entry.getKey(), late, Long::sum);
+                }
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * @return clicks recorded on this instance that have not reached Redis yet.
+     */
+    public long unflushedClicks(String shortCode) {
+        LongAdder adder = counters.get(shortCode);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    /**
+     * Adds the deltas already in the shared hash, which may come from any instance.
+     */
+    @Override
+    public long pendingClicks(String shortCode) {
+        Object flushedDelta = redisTemplate.opsForHash().get(COUNTS_KEY, shortCode);
+        return unflushedClicks(shortCode) + (flushedDelta != null ? Long.parseLong((String) flushedDelta) : 0);
+    }
+
+    /**
+     * Reads the shared deltas of all the codes with one HMGET.
+     */
+    @Override
+    public Map<String, Long> pendingClicks(Collection<String> shortCodes) {
+        List<Object> fields = new ArrayList<>(shortCodes);
+        List<Object> flushedDeltas = redisTemplate.opsForHash().multiGet(COUNTS_KEY, fields);
+        Map<String, Long> pending = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String shortCode = (String) fields.get(i);
+            Object flushedDelta = flushedDeltas.get(i);
+            pending.put(shortCode,
+                    unflushedClicks(shortCode) + (flushedDelta != null ? Long.parseLong((String) flushedDelta) : 0));
+        }
+        return pending;
+    }
+
+    private static long sum(Map<String, Long> deltas) {
+        long total = 0;
+        for (long delta : deltas.values()) {
+            total += delta;
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedCodes", counters.size());
+        stats.put("recorded", recorded.sum());
+        stats.put("flushed", flushed.sum());
+        stats.put("failedFlushes", failed.sum());
+        return stats;
+    }
+}
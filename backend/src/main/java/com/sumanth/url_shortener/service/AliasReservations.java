@@ -0,0 +1,213 @@
+package com.sumanth.url_shortener.service;
+
+import com.sumanth.url_shortener.controller.dto.AliasAvailabilityDto;
+import com.sumanth.url_shortener.exception.InvalidAliasException;
+import com.sumanth.url_shortener.model.UrlMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this alias free?" and "what could I use instead?" from memory,
+ * so the UI can ask on every keystroke.
+ * <p>
+ * MongoDB stays the authority: the unique {@code {shortCode, domain}} index
+ * decides who gets an alias. This class keeps a sorted set of the aliases of
+ * each domain, loaded from {@code url_mappings} once the application is
+ * ready and kept current through the {@value #CHANNEL} channel, the same way
+ * {@link ShortCodeFilter} shares new codes. A name that is not an alias can
+ * still be a generated code; those are looked up in MongoDB, but only when
+ * the short code filter says the code may exist.
+ */
+@Service
+public class AliasReservations implements MessageListener {
+
+    public static final String CHANNEL = "url:aliases:new";
+
+    private static final Logger logger = LoggerFactory.getLogger(AliasReservations.class);
+
+    // Keys of the per-domain sets; ConcurrentHashMap does not take null
+    private static final String DEFAULT_DOMAIN = "";
+
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ShortCodeFilter shortCodeFilter;
+    private final int minLength;
+    private final int maxLength;
+    private final int suggestions;
+    private final Set<String> reserved;
+
+    private final Map<String, NavigableSet<String>> aliasesByDomain = new ConcurrentHashMap<>();
+
+    public AliasReservations(MongoTemplate mongoTemplate, StringRedisTemplate redisTemplate,
+            ShortCodeFilter shortCodeFilter,
+            @Value("${app.aliases.min-length:3}") int minLength,
+            @Value("${app.aliases.max-length:64}") int maxLength,
+            @Value("${app.aliases.suggestions:5}") int suggestions,
+            // Single-segment paths that are served by something other than a redirect
+            @Value("${app.fast-redirect.reserved:shorten,logout,login,error,actuator,oauth2,api,livez,readyz}")
+                    List<String> reserved) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisTemplate = redisTemplate;
+        this.shortCodeFilter = shortCodeFilter;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.suggestions = suggestions;
+        this.reserved = Set.copyOf(reserved);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            ensureIndexes();
+            load();
+        } catch (Exception e) {
+            logger.error("Failed to load aliases: {}", e.getMessage(), e);
+        }
+    }
+
+    void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(UrlMapping.class);
+        indexOps.createIndex(new Index().on("shortCode", Sort.Direction.ASC).on("domain", Sort.Direction.ASC)
+                .unique().named("shortCode_domain"));
+        indexOps.createIndex(new Index().on("custom", Sort.Direction.ASC)
+                .partial(PartialIndexFilter.of(Criteria.where("custom").is(true))));
+        for (IndexInfo index : indexOps.getIndexInfo()) {
+            // A code may now exist once per domain
+            if (index.isIndexForFields(List.of("shortCode")) && index.isUnique()) {
+                indexOps.dropIndex(index.getName());
+            }
+        }
+    }
+
+    void load() {
+        Query query = new Query(Criteria.where("custom").is(true));
+        query.fields().include("shortCode", "domain").exclude("_id");
+        long count;
+        try (Stream<UrlMapping> mappings = mongoTemplate.stream(query, UrlMapping.class)) {
+            count = mappings.filter(mapping -> mapping.getShortCode() != null)
+                    .peek(mapping -> aliases(mapping.getDomain()).add(mapping.getShortCode()))
+                    .count();
+        }
+        logger.info("Loaded {} aliases", count);
+    }
+
+    /**
+     * @throws InvalidAliasException if the alias has the wrong length or
+     *                               characters, or names a reserved path.
+     */
+    public void validate(String alias) {
+        if (alias.length() < minLength || alias.length() > maxLength) {
+            throw new InvalidAliasException(
+                    "Alias must have between " + minLength + " and " + maxLength + " characters");
+        }
+        for (int i = 0; i < alias.length(); i++) {
+            char c = alias.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_')) {
+                throw new InvalidAliasException("Alias may only contain letters, digits, '-' and '_'");
+            }
+        }
+        if (reserved.contains(alias)) {
+            throw new InvalidAliasException("Alias is reserved: " + alias);
+        }
+    }
+
+    /**
+     * In-memory check only; used to keep generated codes off aliases.
+     */
+    public boolean isAlias(String domain, String shortCode) {
+        return aliases(domain).contains(shortCode);
+    }
+
+    /**
+     * @return true if the alias or a generated code already uses this name.
+     */
+    public boolean isTaken(String domain, String alias) {
+        if (isAlias(domain, alias)) {
+            return true;
+        }
+        String key = ShortDomains.key(domain, alias);
+        return shortCodeFilter.mightExist(key)
+                && mongoTemplate.exists(new Query(ShortDomains.criteria(key)), UrlMapping.class);
+    }
+
+    public AliasAvailabilityDto check(String domain, String alias) {
+        validate(alias);
+        if (!isTaken(domain, alias)) {
+            return new AliasAvailabilityDto(alias, domain, true, List.of());
+        }
+        return new AliasAvailabilityDto(alias, domain, false, suggest(domain, alias));
+    }
+
+    /**
+     * Numbered variants of a taken alias, checked against memory only; a name
+     * the short code filter cannot rule out is skipped rather than looked up.
+     */
+    List<String> suggest(String domain, String alias) {
+        NavigableSet<String> taken = aliases(domain);
+        List<String> free = new ArrayList<>(suggestions);
+        for (int n = 2; free.size() < suggestions && n < 2 + suggestions * 20; n++) {
+            String suffix = "-" + n;
+            String candidate = alias.substring(0, Math.min(alias.length(), maxLength - suffix.length())) + suffix;
+            if (!taken.contains(candidate) && !reserved.contains(candidate)
+                    && !shortCodeFilter.mightExist(ShortDomains.key(domain, candidate))) {
+                free.add(candidate);
+            }
+        }
+        return free;
+    }
+
+    /**
+     * Records an alias that was just stored, here and on the other instances.
+     */
+    public void add(String domain, String alias) {
+        aliases(domain).add(alias);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, ShortDomains.key(domain, alias));
+        } catch (Exception e) {
+            // The other instances still reject it through the unique index
+            logger.warn("Failed to announce alias {}: {}", alias, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String key = new String(message.getBody(), StandardCharsets.UTF_8);
+        int slash = key.indexOf('/');
+        if (slash < 0) {
+            aliases(null).add(key);
+        } else {
+            aliases(key.substring(0, slash)).add(key.substring(slash + 1));
+        }
+    }
+
+    private NavigableSet<String> aliases(String domain) {
+        return aliasesByDomain.computeIfAbsent(domain == null ? DEFAULT_DOMAIN : domain,
+                d -> new ConcurrentSkipListSet<>());
+    }
+}
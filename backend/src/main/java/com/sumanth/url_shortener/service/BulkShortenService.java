@@ -0,0 +1,320 @@
+package com.sumanth.url_shortener.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.sumanth.url_shortener.controller.dto.BulkShortenResultDto;
+import com.sumanth.url_shortener.exception.InvalidUrlException;
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.repository.UrlMappingRepository;
+import com.sumanth.url_shortener.util.SecureCodeGenerator;
+import com.sumanth.url_shortener.util.UrlCanonicalizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Shortens large batches of URLs with a handful of round trips per chunk
+ * instead of three per URL.
+ * <p>
+ * Each chunk is normalised and hashed in parallel, existing mappings are
+ * resolved with one {@code $in} query on {@code urlDigest}, the sequence numbers
+ * for the new ones are reserved with a single counter increment, and the new
+ * mappings are written with one unordered bulk insert. A URL inserted
+ * concurrently by another request fails the unique index and is looked up
+ * again instead. With write-behind on, a URL reserved by a queued single
+ * shorten gets the reserved code rather than a second one.
+ * <p>
+ * A signed-in user's batch is not deduplicated, like a single owned shorten:
+ * every valid item gets a new link owned by the user, stored without a digest.
+ */
+@Service
+public class BulkShortenService {
+
+    @FunctionalInterface
+    public interface ResultSink {
+        void accept(List<BulkShortenResultDto> results) throws IOException;
+    }
+
+    private final UrlMappingRepository repo;
+    private final MongoTemplate mongoTemplate;
+    private final CounterService counterService;
+    private final SecureCodeGenerator secureCodeGenerator;
+    private final ShortCodeFilter shortCodeFilter;
+    private final AliasReservations aliasReservations;
+    private final UrlMappingWriteBehind writeBehind;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final int chunkSize;
+    private final boolean legacyHashLookup;
+
+    public BulkShortenService(UrlMappingRepository repo, MongoTemplate mongoTemplate,
+            CounterService counterService, SecureCodeGenerator secureCodeGenerator,
+            ShortCodeFilter shortCodeFilter, AliasReservations aliasReservations, UrlMappingWriteBehind writeBehind,
+            UrlCanonicalizer urlCanonicalizer,
+            @Value("${app.bulk-shorten.chunk-size:1000}") int chunkSize,
+            @Value("${app.url-hash.legacy-lookup:true}") boolean legacyHashLookup) {
+        this.repo = repo;
+        this.mongoTemplate = mongoTemplate;
+        this.counterService = counterService;
+        this.secureCodeGenerator = secureCodeGenerator;
+        this.shortCodeFilter = shortCodeFilter;
+        this.aliasReservations = aliasReservations;
+        this.writeBehind = writeBehind;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.chunkSize = chunkSize;
+        this.legacyHashLookup = legacyHashLookup;
+    }
+
+    /**
+     * Reads the URLs one chunk at a time and hands each chunk's results to the
+     * sink as soon as they are known, in input order.
+     *
+     * @param ownerId the signed-in user's id, or null for anonymous links.
+     * @return the number of URLs processed.
+     */
+    public int shortenAll(Iterator<String> longUrls, String ownerId, ResultSink sink) throws IOException {
+        int processed = 0;
+        List<String> chunk = new ArrayList<>(chunkSize);
+        while (longUrls.hasNext()) {
+            chunk.add(longUrls.next());
+            if (chunk.size() == chunkSize) {
+                sink.accept(shortenChunk(chunk, processed, ownerId));
+                processed += chunk.size();
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            sink.accept(shortenChunk(chunk, processed, ownerId));
+            processed += chunk.size();
+        }
+        return processed;
+    }
+
+    List<BulkShortenResultDto> shortenChunk(List<String> longUrls, int offset) {
+        return shortenChunk(longUrls, offset, null);
+    }
+
+    List<BulkShortenResultDto> shortenChunk(List<String> longUrls, int offset, String ownerId) {
+        int size = longUrls.size();
+        ByteBuffer[] digests = new ByteBuffer[size];
+        String[] errors = new String[size];
+
+        // 1. Normalise and hash in parallel
+        IntStream.range(0, size).parallel().forEach(i -> {
+            String longUrl = longUrls.get(i);
+            try {
+                if (longUrl == null || longUrl.trim().isEmpty()) {
+                    throw new InvalidUrlException("URL cannot be empty");
+                }
+                digests[i] = ByteBuffer.wrap(UrlShortenService.digest(urlCanonicalizer.canonicalize(longUrl)));
+            } catch (InvalidUrlException e) {
+                errors[i] = e.getMessage();
+            }
+        });
+
+        if (ownerId != null) {
+            return shortenOwned(longUrls, offset, digests, errors, ownerId);
+        }
+
+        // 2. Resolve existing mappings; the first occurrence of a digest is the one to insert
+        Map<ByteBuffer, String> firstUrlByDigest = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            if (digests[i] != null) {
+                firstUrlByDigest.putIfAbsent(digests[i], longUrls.get(i));
+            }
+        }
+        Map<ByteBuffer, String> shortCodeByDigest = new HashMap<>();
+        if (!firstUrlByDigest.isEmpty()) {
+            resolveExisting(firstUrlByDigest.keySet(), shortCodeByDigest);
+            if (writeBehind.isEnabled()) {
+                resolveReserved(firstUrlByDigest.keySet(), shortCodeByDigest);
+            }
+        }
+
+        // 3. Insert the rest under one reserved range of sequence numbers
+        List<UrlMapping> fresh = new ArrayList<>();
+        for (Map.Entry<ByteBuffer, String> entry : firstUrlByDigest.entrySet()) {
+            if (!shortCodeByDigest.containsKey(entry.getKey())) {
+                Instant now = Instant.now();
+                fresh.add(new UrlMapping(null, entry.getValue(), null, entry.getKey().array(), null, now, now, 0,
+                        null, false, null, null, null));
+            }
+        }
+        Set<ByteBuffer> created = new HashSet<>();
+        if (!fresh.isEmpty()) {
+            assignShortCodes(fresh);
+            insert(fresh, shortCodeByDigest, created);
+        }
+
+        // 4. Answer in input order
+        List<BulkShortenResultDto> results = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String shortCode = digests[i] != null ? shortCodeByDigest.get(digests[i]) : null;
+            if (shortCode != null) {
+                boolean isNew = created.remove(digests[i]);
+                results.add(new BulkShortenResultDto(offset + i, longUrls.get(i), shortCode, isNew, null));
+            } else {
+                String error = errors[i] != null ? errors[i] : "Could not shorten URL";
+                results.add(new BulkShortenResultDto(offset + i, longUrls.get(i), null, null, error));
+            }
+        }
+        return results;
+    }
+
+    private List<BulkShortenResultDto> shortenOwned(List<String> longUrls, int offset, ByteBuffer[] digests,
+            String[] errors, String ownerId) {
+        List<UrlMapping> fresh = new ArrayList<>();
+        for (int i = 0; i < longUrls.size(); i++) {
+            if (digests[i] != null) {
+                Instant now = Instant.now();
+                fresh.add(new UrlMapping(null, longUrls.get(i), null, null, null, now, now, 0,
+                        null, false, null, null, ownerId));
+            }
+        }
+        Set<Integer> failed = Set.of();
+        if (!fresh.isEmpty()) {
+            assignShortCodes(fresh);
+            failed = bulkInsert(fresh);
+            List<String> insertedCodes = new ArrayList<>(fresh.size());
+            for (int i = 0; i < fresh.size(); i++) {
+                if (!failed.contains(i)) {
+                    insertedCodes.add(fresh.get(i).getShortCode());
+                }
+            }
+            shortCodeFilter.add(insertedCodes);
+        }
+
+        List<BulkShortenResultDto> results = new ArrayList<>(longUrls.size());
+        int next = 0;
+        for (int i = 0; i < longUrls.size(); i++) {
+            String shortCode = null;
+            if (digests[i] != null) {
+                int index = next++;
+                shortCode = failed.contains(index) ? null : fresh.get(index).getShortCode();
+            }
+            if (shortCode != null) {
+                results.add(new BulkShortenResultDto(offset + i, longUrls.get(i), shortCode, true, null));
+            } else {
+                String error = errors[i] != null ? errors[i] : "Could not shorten URL";
+                results.add(new BulkShortenResultDto(offset + i, longUrls.get(i), null, null, error));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Gives the mappings codes from one reserved range of sequence numbers.
+     */
+    private void assignShortCodes(List<UrlMapping> fresh) {
+        long first = counterService.reserve(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            String shortCode = secureCodeGenerator.generate(first + i);
+            while (aliasReservations.isAlias(null, shortCode)) {
+                // Taken as an alias before the sequence reached it
+                shortCode = secureCodeGenerator.generate(counterService.getNextSequence());
+            }
+            fresh.get(i).setShortCode(shortCode);
+        }
+    }
+
+    /**
+     * @return the indexes of the mappings that were not inserted.
+     */
+    private Set<Integer> bulkInsert(List<UrlMapping> fresh) {
+        Set<Integer> failed = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)
+                    .insert(fresh)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failed.add(error.getIndex());
+            }
+        }
+        return failed;
+    }
+
+    private void insert(List<UrlMapping> fresh, Map<ByteBuffer, String> shortCodeByDigest, Set<ByteBuffer> created) {
+        Set<Integer> failed = bulkInsert(fresh);
+
+        List<ByteBuffer> retryDigests = new ArrayList<>();
+        List<String> insertedCodes = new ArrayList<>(fresh.size());
+        for (int i = 0; i < fresh.size(); i++) {
+            UrlMapping mapping = fresh.get(i);
+            ByteBuffer digest = ByteBuffer.wrap(mapping.getUrlDigest());
+            if (failed.contains(i)) {
+                retryDigests.add(digest);
+            } else {
+                shortCodeByDigest.put(digest, mapping.getShortCode());
+                created.add(digest);
+                insertedCodes.add(mapping.getShortCode());
+            }
+        }
+        shortCodeFilter.add(insertedCodes);
+
+        // Mostly URLs another request inserted between the lookup and the insert
+        if (!retryDigests.isEmpty()) {
+            resolveExisting(retryDigests, shortCodeByDigest);
+        }
+    }
+
+    /**
+     * Mappings still queued for write-behind are not in MongoDB yet; their
+     * reservations hold the codes their clients already got.
+     */
+    private void resolveReserved(Collection<ByteBuffer> digests, Map<ByteBuffer, String> shortCodeByDigest) {
+        List<ByteBuffer> missing = new ArrayList<>();
+        List<byte[]> rawDigests = new ArrayList<>();
+        for (ByteBuffer digest : digests) {
+            if (!shortCodeByDigest.containsKey(digest)) {
+                missing.add(digest);
+                rawDigests.add(digest.array());
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        List<String> reserved = writeBehind.reservations(rawDigests);
+        for (int i = 0; i < missing.size(); i++) {
+            if (reserved.get(i) != null) {
+                shortCodeByDigest.put(missing.get(i), reserved.get(i));
+            }
+        }
+    }
+
+    private void resolveExisting(Collection<ByteBuffer> digests, Map<ByteBuffer, String> shortCodeByDigest) {
+        List<byte[]> rawDigests = new ArrayList<>(digests.size());
+        for (ByteBuffer digest : digests) {
+            rawDigests.add(digest.array());
+        }
+
+        List<UrlMapping> existing;
+        if (legacyHashLookup) {
+            List<String> legacyHashes = new ArrayList<>(rawDigests.size());
+            for (byte[] digest : rawDigests) {
+                legacyHashes.add(UrlShortenService.legacyHash(digest));
+            }
+            existing = repo.findByUrlDigestInOrUrlHashIn(rawDigests, legacyHashes);
+        } else {
+            existing = repo.findByUrlDigestIn(rawDigests);
+        }
+
+        for (UrlMapping mapping : existing) {
+            shortCodeByDigest.put(ByteBuffer.wrap(UrlShortenService.digestOf(mapping)), mapping.getShortCode());
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.sumanth.url_shortener.service;
+
+import com.sumanth.url_shortener.model.UrlMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Fills the redirect caches before the instance takes traffic, so a deploy
+ * or a Redis failover does not send every redirect to MongoDB at once.
+ * <p>
+ * Runs as an {@link ApplicationRunner}, which Spring Boot finishes before it
+ * reports the application ready. The most-clicked and the most recently
+ * created mappings are streamed with a shortCode/longUrl projection and
+ * written to Redis in pipelined batches by up to {@code concurrency} threads,
+ * and into the local tier. Whatever is not done within {@code time-budget}
+ * is left to normal traffic. Both queries read a descending index instead of
+ * sorting the collection; the indexes are created first if missing.
+ */
+@Service
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final UrlCacheService urlCache;
+    private final boolean enabled;
+    private final int topClicked;
+    private final int recentlyCreated;
+    private final int batchSize;
+    private final int concurrency;
+    private final Duration timeBudget;
+
+    private final LongAdder warmed = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private volatile long durationMillis = -1;
+    private volatile boolean timedOut;
+
+    public CacheWarmer(MongoTemplate mongoTemplate, StringRedisTemplate redisTemplate, UrlCacheService urlCache,
+            @Value("${app.cache.warm-up.enabled:true}") boolean enabled,
+            @Value("${app.cache.warm-up.top-clicked:10000}") int topClicked,
+            @Value("${app.cache.warm-up.recently-created:1000}") int recentlyCreated,
+            @Value("${app.cache.warm-up.batch-size:500}") int batchSize,
+            @Value("${app.cache.warm-up.concurrency:4}") int concurrency,
+            @Value("${app.cache.warm-up.time-budget:20s}") Duration timeBudget) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisTemplate = redisTemplate;
+        this.urlCache = urlCache;
+        this.enabled = enabled;
+        this.topClicked = topClicked;
+        this.recentlyCreated = recentlyCreated;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.timeBudget = timeBudget;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            ensureIndexes();
+            warmUp();
+        }
+    }
+
+    /**
+     * Runs before ApplicationReadyEvent like the warm-up itself, so it cannot
+     * wait for the other index hooks.
+     */
+    void ensureIndexes() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(UrlMapping.class);
+            indexOps.createIndex(new Index().on("clickCount", Sort.Direction.DESC));
+            indexOps.createIndex(new Index().on("createdAt", Sort.Direction.DESC));
+        } catch (Exception e) {
+            logger.error("Failed to create the warm-up indexes: {}", e.getMessage(), e);
+        }
+    }
+
+    void warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + timeBudget.toNanos();
+        ExecutorService writers = Executors.newFixedThreadPool(concurrency,
+                Thread.ofPlatform().name("cache-warm-up-", 0).daemon().factory());
+        Semaphore slots = new Semaphore(concurrency);
+        Set<String> seen = new HashSet<>();
+
+        try {
+            boolean inTime = load(byField("clickCount", topClicked), seen, writers, slots, deadline)
+                    && load(byField("createdAt", recentlyCreated), seen, writers, slots, deadline);
+
+            // Wait for the batches still being written
+            writers.shutdown();
+            long remaining = deadline - System.nanoTime();
+            timedOut = !inTime || !writers.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            timedOut = true;
+        } catch (Exception e) {
+            logger.error("Cache warm-up failed: {}", e.getMessage(), e);
+        } finally {
+            writers.shutdownNow();
+        }
+
+        durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        logger.info("Cache warm-up loaded {} urls in {} ms{}", warmed.sum(), durationMillis,
+                timedOut ? " (stopped at the " + timeBudget.toMillis() + " ms budget)" : "");
+    }
+
+    private Query byField(String field, int limit) {
+        Query query = new Query()
+                .with(Sort.by(Sort.Direction.DESC, field))
+                .limit(limit)
+                .cursorBatchSize(batchSize);
+        query.fields().include("shortCode", "domain", "longUrl", "expiresAt", "maxClicks").exclude("_id");
+        return query;
+    }
+
+    /**
+     * @return false if the deadline passed before the query was exhausted.
+     */
+    private boolean load(Query query, Set<String> seen, ExecutorService writers, Semaphore slots, long deadline)
+            throws InterruptedException {
+        if (query.getLimit() <= 0) {
+            return true;
+        }
+        try (Stream<UrlMapping> mappings = mongoTemplate.stream(query, UrlMapping.class)) {
+            List<UrlMapping> batch = new ArrayList<>(batchSize);
+            Iterator<UrlMapping> iterator = mappings.iterator();
+            while (iterator.hasNext()) {
+                UrlMapping mapping = iterator.next();
+                if (mapping.getShortCode() == null || mapping.getLongUrl() == null
+                        || (mapping.getExpiresAt() != null && !mapping.getExpiresAt().isAfter(Instant.now()))
+                        || !seen.add(ShortDomains.key(mapping.getDomain(), mapping.getShortCode()))) {
+                    continue;
+                }
+                batch.add(mapping);
+                if (batch.size() == batchSize) {
+                    if (!submit(batch, writers, slots, deadline)) {
+                        return false;
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            return batch.isEmpty() || submit(batch, writers, slots, deadline);
+        }
+    }
+
+    private boolean submit(List<UrlMapping> batch, ExecutorService writers, Semaphore slots, long deadline)
+            throws InterruptedException {
+        // Bounds the batches held in memory to one per writer
+        if (!slots.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            return false;
+        }
+        writers.execute(() -> {
+            try {
+                write(batch);
+            } finally {
+                slots.release();
+            }
+        });
+        return true;
+    }
+
+    private void write(List<UrlMapping> batch) {
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (UrlMapping mapping : batch) {
+                    String value = CachedUrl.encode(mapping);
+                    // Per-key TTL, so the warmed keys do not all expire together
+                    connection.stringCommands().set(
+                            ShortDomains.key(mapping.getDomain(), mapping.getShortCode())
+                                    .getBytes(StandardCharsets.UTF_8),
+                            value.getBytes(StandardCharsets.UTF_8),
+                            Expiration.from(urlCache.redisTtl(value)),
+                            RedisStringCommands.SetOption.upsert());
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            failedBatches.increment();
+            logger.warn("Cache warm-up batch failed: {}", e.getMessage());
+        }
+        for (UrlMapping mapping : batch) {
+            urlCache.putLocal(ShortDomains.key(mapping.getDomain(), mapping.getShortCode()), CachedUrl.encode(mapping));
+        }
+        warmed.add(batch.size());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("warmed", warmed.sum());
+        stats.put("failedBatches", failedBatches.sum());
+        stats.put("durationMillis", durationMillis);
+        stats.put("timedOut", timedOut);
+        return stats;
+    }
+}
@@ -0,0 +1,65 @@
+package com.sumanth.url_shortener.service;
+
+import java.time.Duration;
+
+import com.sumanth.url_shortener.model.UrlMapping;
+
+/**
+ * What the redirect caches hold for a code.
+ * <p>
+ * A link without limits is cached as the bare long URL, as before. A link
+ * with an expiry or a click cap is cached as
+ * {@code !<expiresAtMillis>!<maxClicks>!<longUrl>}, 0 standing for "none", so
+ * a redirect served from either tier can enforce both without reading
+ * MongoDB. A long URL starts with its scheme, never with {@code '!'}.
+ */
+public record CachedUrl(String longUrl, long expiresAtMillis, long maxClicks) {
+
+    private static final char MARKER = '!';
+
+    /**
+     * True for the common case, which needs no decoding.
+     */
+    public static boolean isPlain(String value) {
+        return value.isEmpty() || value.charAt(0) != MARKER;
+    }
+
+    public static String encode(UrlMapping mapping) {
+        long expiresAtMillis = mapping.getExpiresAt() != null ? mapping.getExpiresAt().toEpochMilli() : 0;
+        long maxClicks = mapping.getMaxClicks() != null ? mapping.getMaxClicks() : 0;
+        if (expiresAtMillis == 0 && maxClicks == 0) {
+            return mapping.getLongUrl();
+        }
+        return MARKER + Long.toString(expiresAtMillis) + MARKER + maxClicks + MARKER + mapping.getLongUrl();
+    }
+
+    public static CachedUrl decode(String value) {
+        if (isPlain(value)) {
+            return new CachedUrl(value, 0, 0);
+        }
+        int second = value.indexOf(MARKER, 1);
+        int third = value.indexOf(MARKER, second + 1);
+        return new CachedUrl(value.substring(third + 1),
+                Long.parseLong(value, 1, second, 10),
+                Long.parseLong(value, second + 1, third, 10));
+    }
+
+    /**
+     * @return {@code ttl}, or the link's remaining life if that is shorter.
+     */
+    public static Duration ttl(String value, Duration ttl) {
+        if (isPlain(value)) {
+            return ttl;
+        }
+        long expiresAtMillis = decode(value).expiresAtMillis();
+        if (expiresAtMillis == 0) {
+            return ttl;
+        }
+        long remaining = expiresAtMillis - System.currentTimeMillis();
+        return remaining < ttl.toMillis() ? Duration.ofMillis(Math.max(1, remaining)) : ttl;
+    }
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAtMillis != 0 && nowMillis >= expiresAtMillis;
+    }
+}
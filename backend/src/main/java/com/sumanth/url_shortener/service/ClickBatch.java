@@ -0,0 +1,44 @@
+package com.sumanth.url_shortener.service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Clicks collected from one read of the click pipeline: a total per short code
+ * for {@code clickCount}, and a count per short code and minute for the time
+ * series.
+ */
+public class ClickBatch {
+
+    public record ClickMinute(String shortCode, Instant minute) {
+    }
+
+    private final Map<String, Long> shortCodeCounts = new HashMap<>();
+    private final Map<ClickMinute, Long> minuteCounts = new HashMap<>();
+
+    public void add(String shortCode, Instant at) {
+        add(shortCode, 1, at);
+    }
+
+    public void add(String shortCode, long clicks, Instant at) {
+        if (shortCode == null || clicks <= 0) {
+            return;
+        }
+        shortCodeCounts.merge(shortCode, clicks, Long::sum);
+        minuteCounts.merge(new ClickMinute(shortCode, at.truncatedTo(ChronoUnit.MINUTES)), clicks, Long::sum);
+    }
+
+    public Map<String, Long> shortCodeCounts() {
+        return shortCodeCounts;
+    }
+
+    public Map<ClickMinute, Long> minuteCounts() {
+        return minuteCounts;
+    }
+
+    public boolean isEmpty() {
+        return shortCodeCounts.isEmpty();
+    }
+}
@@ -0,0 +1,151 @@
+package com.sumanth.url_shortener.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Moves the aggregated click counts from Redis into MongoDB.
+ * <p>
+ * The hash is first RENAMEd to a key owned by this instance, which atomically
+ * detaches it: clicks flushed meanwhile start a fresh hash and no increment is
+ * lost. The detached hash is applied with one bulk write and then deleted. If
+ * the instance dies in between, the same instance name picks the leftover key
+ * up on its next run. Instance names change across restarts (a new pod, a
+ * random name), so a key nobody has touched for {@code orphan-after} is also
+ * adopted by whichever instance finds it first.
+ */
+@Component
+@ConditionalOnProperty(name = "app.clicks.mode", havingValue = "aggregate")
+public class ClickCountFlusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickCountFlusher.class);
+
+    static final String PROCESSING_KEY_PREFIX = AggregatingClickRecorder.COUNTS_KEY + ":flushing:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ClickCountWriter clickCountWriter;
+    private final String processingKey;
+    private final Duration orphanAfter;
+
+    public ClickCountFlusher(StringRedisTemplate redisTemplate, ClickCountWriter clickCountWriter,
+            @Value("${app.instance-name:${HOSTNAME:}}") String instanceName,
+            @Value("${app.clicks.aggregate.orphan-after:5m}") Duration orphanAfter) {
+        this.redisTemplate = redisTemplate;
+        this.clickCountWriter = clickCountWriter;
+        this.processingKey = PROCESSING_KEY_PREFIX
+                + (instanceName == null || instanceName.isBlank() ? UUID.randomUUID() : instanceName);
+        this.orphanAfter = orphanAfter;
+    }
+
+    /**
+     * Adopts the batch of an instance that died between detaching and
+     * deleting it, so the next {@link #persistClickCounts()} applies it. A
+     * live instance reads its key on every run, so only keys idle for much
+     * longer than the persist interval are taken.
+     */
+    @Scheduled(fixedDelayString = "${app.clicks.aggregate.orphan-check-interval-ms:300000}")
+    public synchronized void recoverOrphans() {
+        try {
+            for (String key : orphanedKeys()) {
+                if (Boolean.TRUE.equals(redisTemplate.hasKey(processingKey))) {
+                    // Our own batch goes first; the rest waits for the next check
+                    return;
+                }
+                if (adopt(key)) {
+                    logger.warn("Adopted unpersisted click counts from {}", key);
+                    persistClickCounts();
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Error recovering orphaned click counts: {}", e.getMessage(), e);
+        }
+    }
+
+    private List<String> orphanedKeys() {
+        List<String> orphaned = new ArrayList<>();
+        ScanOptions options = ScanOptions.scanOptions().match(PROCESSING_KEY_PREFIX + "*").count(100).build();
+        try (Cursor<String> keys = redisTemplate.scan(options)) {
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (!key.equals(processingKey) && isIdle(key)) {
+                    orphaned.add(key);
+                }
+            }
+        }
+        return orphaned;
+    }
+
+    private boolean isIdle(String key) {
+        byte[] rawKey = key.getBytes(StandardCharsets.UTF_8);
+        Duration idle = redisTemplate.execute((RedisCallback<Duration>) connection -> connection.keyCommands()
+                .idletime(rawKey));
+        return idle != null && idle.compareTo(orphanAfter) >= 0;
+    }
+
+    /**
+     * @return false if another instance adopted the key first.
+     */
+    private boolean adopt(String key) {
+        try {
+            return Boolean.TRUE.equals(redisTemplate.renameIfAbsent(key, processingKey));
+        } catch (Exception e) {
+            if (String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()).contains("no such key")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.clicks.aggregate.persist-interval-ms:10000}")
+    public synchronized void persistClickCounts() {
+        try {
+            // 1. Finish a batch a previous run detached but did not delete
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(processingKey)) && !detachCounts()) {
+                return;
+            }
+
+            // 2. Apply and drop the detached batch
+            // The hash only holds totals, so the clicks land in the minute they are persisted
+            Instant now = Instant.now();
+            Map<Object, Object> entries = redisTemplate.opsForHash().entries(processingKey);
+            ClickBatch clicks = new ClickBatch();
+            for (Map.Entry<Object, Object> entry : entries.entrySet()) {
+                clicks.add((String) entry.getKey(), Long.parseLong((String) entry.getValue()), now);
+            }
+            clickCountWriter.applyClicks(clicks);
+            redisTemplate.delete(processingKey);
+
+        } catch (Exception e) {
+            logger.error("Error persisting click counts: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean detachCounts() {
+        try {
+            redisTemplate.rename(AggregatingClickRecorder.COUNTS_KEY, processingKey);
+            return true;
+        } catch (Exception e) {
+            if (String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()).contains("no such key")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.sumanth.url_shortener.service;
+
+import com.sumanth.url_shortener.model.UrlMapping;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Adds per-code click deltas to {@link UrlMapping#getClickCount()} with one
+ * unordered bulk write, then records the same clicks in the time series.
+ * <p>
+ * Only the counter write may fail the batch. A caller that sees the failure
+ * replays the whole batch, so once the counters are incremented a failure of
+ * the time series is logged and counted instead; rethrowing it would add the
+ * same clicks to {@code clickCount} a second time.
+ */
+@Component
+public class ClickCountWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickCountWriter.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ClickTimeSeriesService clickTimeSeriesService;
+    private final ClickStatsService clickStatsService;
+    private final Timer bulkWriteTimer;
+    private final Counter timeSeriesFailures;
+
+    public ClickCountWriter(MongoTemplate mongoTemplate, ClickTimeSeriesService clickTimeSeriesService,
+            ClickStatsService clickStatsService, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.clickTimeSeriesService = clickTimeSeriesService;
+        this.clickStatsService = clickStatsService;
+        this.bulkWriteTimer = Timer.builder("clicks.bulk.write")
+                .description("Time to add a batch of click deltas to url_mappings")
+                .register(meterRegistry);
+        this.timeSeriesFailures = Counter.builder("clicks.timeseries.failures")
+                .description("Click batches counted in url_mappings but missing from the time series")
+                .register(meterRegistry);
+    }
+
+    public void applyClicks(ClickBatch batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        bulkWriteTimer.record(() -> applyClickCounts(batch.shortCodeCounts()));
+        clickStatsService.addPersistedClicks(batch.shortCodeCounts());
+        try {
+            clickTimeSeriesService.recordClicks(batch.minuteCounts());
+        } catch (Exception e) {
+            timeSeriesFailures.increment();
+            logger.error("Failed to record {} click minutes in the time series: {}", batch.minuteCounts().size(),
+                    e.getMessage(), e);
+        }
+    }
+
+    private void applyClickCounts(Map<String, Long> shortCodeCounts) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class);
+
+        for (Map.Entry<String, Long> entry : shortCodeCounts.entrySet()) {
+            Query query = new Query(ShortDomains.criteria(entry.getKey()));
+            Update update = new Update().inc("clickCount", entry.getValue());
+            bulkOps.updateOne(query, update);
+        }
+
+        bulkOps.execute();
+    }
+}
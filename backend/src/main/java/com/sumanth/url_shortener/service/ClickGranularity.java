@@ -0,0 +1,73 @@
+package com.sumanth.url_shortener.service;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Rollup levels of the click time series and how a click instant maps onto
+ * a bucket document and a slot inside it. All buckets are in UTC.
+ */
+public enum ClickGranularity {
+
+    MINUTE("m", ChronoUnit.MINUTES),
+    HOUR("h", ChronoUnit.HOURS),
+    DAY("d", ChronoUnit.DAYS);
+
+    private final String code;
+    private final ChronoUnit slotUnit;
+
+    ClickGranularity(String code, ChronoUnit slotUnit) {
+        this.code = code;
+        this.slotUnit = slotUnit;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public ChronoUnit slotUnit() {
+        return slotUnit;
+    }
+
+    /**
+     * @return start of the bucket document holding the given instant.
+     */
+    public Instant bucketStart(Instant at) {
+        return switch (this) {
+            case MINUTE -> at.truncatedTo(ChronoUnit.HOURS);
+            case HOUR -> at.truncatedTo(ChronoUnit.DAYS);
+            case DAY -> ZonedDateTime.ofInstant(at, ZoneOffset.UTC)
+                    .withDayOfMonth(1)
+                    .truncatedTo(ChronoUnit.DAYS)
+                    .toInstant();
+        };
+    }
+
+    /**
+     * @return start of the bucket after the one starting at {@code bucketStart}.
+     */
+    public Instant nextBucketStart(Instant bucketStart) {
+        return switch (this) {
+            case MINUTE -> bucketStart.plus(1, ChronoUnit.HOURS);
+            case HOUR -> bucketStart.plus(1, ChronoUnit.DAYS);
+            case DAY -> ZonedDateTime.ofInstant(bucketStart, ZoneOffset.UTC).plusMonths(1).toInstant();
+        };
+    }
+
+    public int slot(Instant at) {
+        ZonedDateTime time = ZonedDateTime.ofInstant(at, ZoneOffset.UTC);
+        return switch (this) {
+            case MINUTE -> time.getMinute();
+            case HOUR -> time.getHour();
+            case DAY -> time.getDayOfMonth();
+        };
+    }
+
+    public Instant slotStart(Instant bucketStart, int slot) {
+        return this == DAY
+                ? bucketStart.plus(slot - 1L, ChronoUnit.DAYS)
+                : bucketStart.plus(slot, slotUnit);
+    }
+}
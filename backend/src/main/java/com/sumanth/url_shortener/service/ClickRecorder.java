@@ -0,0 +1,43 @@
+package com.sumanth.url_shortener.service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records redirects for click accounting. Implementations must never make the
+ * redirect wait on Redis or MongoDB.
+ * <p>
+ * {@code app.clicks.mode} picks the implementation: {@code stream} (default)
+ * writes one stream entry per click through {@link RedisStreamPublisher};
+ * {@code aggregate} counts in memory and flushes per-code deltas through
+ * {@link AggregatingClickRecorder}.
+ */
+public interface ClickRecorder {
+
+    void recordClick(String shortCode);
+
+    /**
+     * @return clicks recorded for the code that are not in MongoDB yet and
+     *         would not get there within one consumer poll interval.
+     */
+    default long pendingClicks(String shortCode) {
+        return 0;
+    }
+
+    /**
+     * {@link #pendingClicks(String)} for several codes, for callers that need
+     * them all at once.
+     *
+     * @return pending clicks per code.
+     */
+    default Map<String, Long> pendingClicks(Collection<String> shortCodes) {
+        Map<String, Long> pending = new HashMap<>();
+        for (String shortCode : shortCodes) {
+            pending.put(shortCode, pendingClicks(shortCode));
+        }
+        return pending;
+    }
+
+    Map<String, Object> stats();
+}
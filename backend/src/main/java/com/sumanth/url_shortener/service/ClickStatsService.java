@@ -0,0 +1,89 @@
+package com.sumanth.url_shortener.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.sumanth.url_shortener.exception.UrlNotFoundException;
+import com.sumanth.url_shortener.model.UrlMapping;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Serves click counts without reading the whole mapping on every call.
+ * <p>
+ * The persisted {@code clickCount} is kept in a Caffeine cache, loaded with a
+ * query that projects only that field. Entries are refreshed in the background
+ * once they are {@code refreshAfter} old, so a polled code never waits on
+ * MongoDB after its first read, and batches written by this instance bump the
+ * cached value straight away. Clicks the {@link ClickRecorder} has not
+ * persisted yet are added on top.
+ */
+@Service
+public class ClickStatsService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ClickRecorder clickRecorder;
+    private final LoadingCache<String, Long> persistedCounts;
+
+    public ClickStatsService(MongoTemplate mongoTemplate, ClickRecorder clickRecorder,
+            @Value("${app.click-stats.max-size:10000}") long maxSize,
+            @Value("${app.click-stats.refresh-after:1s}") Duration refreshAfter,
+            @Value("${app.click-stats.expire-after:5m}") Duration expireAfter) {
+        this.mongoTemplate = mongoTemplate;
+        this.clickRecorder = clickRecorder;
+        this.persistedCounts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .build(this::loadClickCount);
+    }
+
+    public long getClickCount(String shortCode) {
+        Long persisted = persistedCounts.get(shortCode);
+        if (persisted == null) {
+            throw new UrlNotFoundException(shortCode);
+        }
+        return persisted + clickRecorder.pendingClicks(shortCode);
+    }
+
+    /**
+     * For mappings that were just read anyway: uses each one's
+     * {@code clickCount} unless a fresher value is cached, so listing many
+     * links costs no extra queries and does not fill the cache with codes
+     * nobody polls. The pending clicks of all of them are read in one call.
+     *
+     * @param persistedClickCounts {@code clickCount} per cache key.
+     * @return the click count per cache key.
+     */
+    public Map<String, Long> getClickCounts(Map<String, Long> persistedClickCounts) {
+        Map<String, Long> pending = clickRecorder.pendingClicks(persistedClickCounts.keySet());
+        Map<String, Long> counts = new HashMap<>();
+        persistedClickCounts.forEach((key, persistedClickCount) -> {
+            Long persisted = persistedCounts.getIfPresent(key);
+            counts.put(key, (persisted != null ? persisted : persistedClickCount) + pending.getOrDefault(key, 0L));
+        });
+        return counts;
+    }
+
+    /**
+     * Called after a batch of deltas reached MongoDB, so cached counts do not
+     * lag behind this instance's own writes until the next refresh.
+     */
+    void addPersistedClicks(Map<String, Long> shortCodeCounts) {
+        Map<String, Long> cached = persistedCounts.asMap();
+        shortCodeCounts.forEach((shortCode, delta) -> cached.computeIfPresent(shortCode, (k, count) -> count + delta));
+    }
+
+    private Long loadClickCount(String shortCode) {
+        Query query = new Query(ShortDomains.criteria(shortCode));
+        query.fields().include("clickCount").exclude("_id");
+
+        UrlMapping mapping = mongoTemplate.findOne(query, UrlMapping.class);
+        return mapping != null ? mapping.getClickCount() : null;
+    }
+}
@@ -0,0 +1,154 @@
+package com.sumanth.url_shortener.service;
+
+import com.sumanth.url_shortener.controller.dto.ClickTimeSeriesDto;
+import com.sumanth.url_shortener.exception.InvalidTimeRangeException;
+import com.sumanth.url_shortener.model.ClickBucket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes and reads the per-code click time series in {@code click_buckets}.
+ * <p>
+ * A batch of clicks is folded into minute, hour and day buckets in memory, so
+ * each bucket document gets a single {@code $inc} upsert per batch however
+ * many clicks it holds. Minute and hour buckets expire after their retention;
+ * the day rollups are kept unless a day retention is configured.
+ * <p>
+ * Automatic index creation is off, so the range-query index and the TTL
+ * index that removes expired buckets are created on startup.
+ */
+@Service
+public class ClickTimeSeriesService {
+
+    private record BucketSlot(String shortCode, ClickGranularity granularity, Instant bucketStart, int slot) {
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(ClickTimeSeriesService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final Map<ClickGranularity, Duration> retention = new EnumMap<>(ClickGranularity.class);
+    private final int maxPoints;
+
+    public ClickTimeSeriesService(MongoTemplate mongoTemplate,
+            @Value("${app.click-analytics.minute-retention:7d}") Duration minuteRetention,
+            @Value("${app.click-analytics.hour-retention:90d}") Duration hourRetention,
+            @Value("${app.click-analytics.day-retention:0d}") Duration dayRetention,
+            @Value("${app.click-analytics.max-points:20000}") int maxPoints) {
+        this.mongoTemplate = mongoTemplate;
+        this.retention.put(ClickGranularity.MINUTE, minuteRetention);
+        this.retention.put(ClickGranularity.HOUR, hourRetention);
+        this.retention.put(ClickGranularity.DAY, dayRetention);
+        this.maxPoints = maxPoints;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            IndexOperations indexOps = mongoTemplate.indexOps(ClickBucket.class);
+            indexOps.createIndex(new Index().on("shortCode", Sort.Direction.ASC)
+                    .on("granularity", Sort.Direction.ASC).on("start", Sort.Direction.ASC));
+            // Same name @Indexed would give it, in case it was auto-created before
+            indexOps.createIndex(new Index().on("expireAt", Sort.Direction.ASC).expire(Duration.ZERO)
+                    .named("expireAt"));
+        } catch (Exception e) {
+            logger.error("Failed to create click_buckets indexes: {}", e.getMessage(), e);
+        }
+    }
+
+    public void recordClicks(Map<ClickBatch.ClickMinute, Long> minuteCounts) {
+        if (minuteCounts.isEmpty()) {
+            return;
+        }
+
+        // 1. Roll the minutes up so every bucket slot is incremented once
+        Map<BucketSlot, Long> slotCounts = new HashMap<>();
+        for (Map.Entry<ClickBatch.ClickMinute, Long> entry : minuteCounts.entrySet()) {
+            String shortCode = entry.getKey().shortCode();
+            Instant minute = entry.getKey().minute();
+            for (ClickGranularity granularity : ClickGranularity.values()) {
+                BucketSlot slot = new BucketSlot(shortCode, granularity,
+                        granularity.bucketStart(minute), granularity.slot(minute));
+                slotCounts.merge(slot, entry.getValue(), Long::sum);
+            }
+        }
+
+        // 2. One upsert per bucket slot
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ClickBucket.class);
+        for (Map.Entry<BucketSlot, Long> entry : slotCounts.entrySet()) {
+            BucketSlot slot = entry.getKey();
+            Query query = new Query(Criteria.where("_id").is(bucketId(slot.shortCode(), slot.granularity(), slot.bucketStart())));
+            Update update = new Update()
+                    .inc("c." + slot.slot(), entry.getValue())
+                    .inc("total", entry.getValue())
+                    .setOnInsert("shortCode", slot.shortCode())
+                    .setOnInsert("granularity", slot.granularity().code())
+                    .setOnInsert("start", slot.bucketStart());
+            Duration keepFor = retention.get(slot.granularity());
+            if (keepFor.isPositive()) {
+                update.setOnInsert("expireAt", slot.granularity().nextBucketStart(slot.bucketStart()).plus(keepFor));
+            }
+            bulkOps.upsert(query, update);
+        }
+        bulkOps.execute();
+    }
+
+    /**
+     * @return the non-empty slots in {@code [from, to)}, oldest first.
+     */
+    public ClickTimeSeriesDto getTimeSeries(String shortCode, ClickGranularity granularity, Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            throw new InvalidTimeRangeException("'from' must be before 'to'");
+        }
+        Duration slotLength = granularity.slotUnit().getDuration();
+        if (Duration.between(from, to).dividedBy(slotLength) > maxPoints) {
+            throw new InvalidTimeRangeException("Range too large for " + granularity.name().toLowerCase()
+                    + " granularity, use a coarser one");
+        }
+
+        Query query = new Query(Criteria.where("shortCode").is(shortCode)
+                .and("granularity").is(granularity.code())
+                .and("start").gte(granularity.bucketStart(from)).lt(to))
+                .with(Sort.by("start"));
+        query.fields().include("start", "c");
+
+        List<ClickTimeSeriesDto.Point> points = new ArrayList<>();
+        for (ClickBucket bucket : mongoTemplate.find(query, ClickBucket.class)) {
+            if (bucket.getCounts() == null) {
+                continue;
+            }
+            bucket.getCounts().entrySet().stream()
+                    .map(slot -> new ClickTimeSeriesDto.Point(
+                            granularity.slotStart(bucket.getStart(), Integer.parseInt(slot.getKey())),
+                            slot.getValue()))
+                    .filter(point -> !point.getTime().isBefore(from) && point.getTime().isBefore(to))
+                    .sorted((a, b) -> a.getTime().compareTo(b.getTime()))
+                    .forEach(points::add);
+        }
+
+        return new ClickTimeSeriesDto(shortCode, granularity.name().toLowerCase(), from, to, points);
+    }
+
+    static String bucketId(String shortCode, ClickGranularity granularity, Instant bucketStart) {
+        return shortCode + ":" + granularity.code() + ":" + bucketStart.getEpochSecond();
+    }
+}
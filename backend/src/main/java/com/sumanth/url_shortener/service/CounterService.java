@@ -1,6 +1,7 @@
 package com.sumanth.url_shortener.service;
 
 import com.sumanth.url_shortener.model.Counter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.mongodb.core.FindAndModifyOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
@@ -8,24 +9,148 @@ import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import jakarta.annotation.PreDestroy;
+
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Hands out sequence numbers from blocks leased from the {@code url_sequence}
+ * counter document.
+ * <p>
+ * Each lease is one atomic {@code $inc} of {@code blockSize}, so the counter
+ * document is touched once per block instead of once per URL. Numbers inside a
+ * block are handed out with a lock-free {@link AtomicLong}, and the next block is
+ * leased in the background once the current one runs low. Numbers left in a
+ * block when the instance stops are never used; short codes are not sequential,
+ * so the gaps are invisible.
+ */
 @Service
 public class CounterService {
 
+    private static final String SEQUENCE_ID = "url_sequence";
+
     private final MongoTemplate mongoTemplate;
+    private final int blockSize;
+    private final int prefetchThreshold;
+    private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("counter-prefetch").daemon().factory());
+
+    private final AtomicReference<SequenceBlock> current = new AtomicReference<>(SequenceBlock.EMPTY);
+    private final AtomicReference<CompletableFuture<SequenceBlock>> next = new AtomicReference<>();
 
-    public CounterService(MongoTemplate mongoTemplate) {
+    public CounterService(MongoTemplate mongoTemplate,
+            @Value("${app.counter.block-size:1000}") int blockSize,
+            @Value("${app.counter.prefetch-threshold:200}") int prefetchThreshold) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Counter block size must be positive");
+        }
         this.mongoTemplate = mongoTemplate;
+        this.blockSize = blockSize;
+        this.prefetchThreshold = Math.min(Math.max(prefetchThreshold, 0), blockSize - 1);
     }
 
     public long getNextSequence() {
-        Query query = new Query(Criteria.where("_id").is("url_sequence"));
-        Update update = new Update().inc("seq", 1);
+        while (true) {
+            SequenceBlock block = current.get();
+            long seq = block.next();
+            if (seq != -1) {
+                // Exactly one caller sees this value, so the prefetch starts once per block
+                if (block.end - seq == prefetchThreshold) {
+                    prefetch();
+                }
+                return seq;
+            }
+            advance(block);
+        }
+    }
+
+    /**
+     * Reserves {@code count} consecutive numbers with a single counter increment,
+     * outside the leased blocks.
+     *
+     * @return the first number of the range {@code [first, first + count - 1]}.
+     */
+    public long reserve(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be positive");
+        }
+        return leaseRange(count).cursor.get();
+    }
+
+    private void advance(SequenceBlock exhausted) {
+        CompletableFuture<SequenceBlock> pending = prefetch();
+        SequenceBlock fresh;
+        try {
+            fresh = pending.join();
+        } catch (CompletionException e) {
+            // Let the next caller retry the lease instead of failing forever
+            next.compareAndSet(pending, null);
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+        if (current.compareAndSet(exhausted, fresh)) {
+            next.compareAndSet(pending, null);
+        }
+    }
+
+    private CompletableFuture<SequenceBlock> prefetch() {
+        CompletableFuture<SequenceBlock> pending = next.get();
+        if (pending != null) {
+            return pending;
+        }
+        CompletableFuture<SequenceBlock> created = new CompletableFuture<>();
+        if (!next.compareAndSet(null, created)) {
+            return next.get();
+        }
+        prefetchExecutor.execute(() -> {
+            try {
+                created.complete(leaseRange(blockSize));
+            } catch (Exception e) {
+                created.completeExceptionally(e);
+            }
+        });
+        return created;
+    }
+
+    private SequenceBlock leaseRange(int size) {
+        Query query = new Query(Criteria.where("_id").is(SEQUENCE_ID));
+        Update update = new Update().inc("seq", size);
         FindAndModifyOptions options = FindAndModifyOptions.options().returnNew(true).upsert(true);
 
         Counter counter = mongoTemplate.findAndModify(query, update, options, Counter.class);
 
-        return !Objects.isNull(counter) ? counter.getSeq() : 1;
+        long end = !Objects.isNull(counter) ? counter.getSeq() : size;
+        return new SequenceBlock(end - size + 1, end);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
+
+    private static final class SequenceBlock {
+
+        static final SequenceBlock EMPTY = new SequenceBlock(1, 0);
+
+        private final AtomicLong cursor;
+        private final long end;
+
+        SequenceBlock(long start, long end) {
+            this.cursor = new AtomicLong(start);
+            this.end = end;
+        }
+
+        /**
+         * @return the next number in the block, or -1 once it is used up.
+         */
+        long next() {
+            long seq = cursor.getAndIncrement();
+            return seq <= end ? seq : -1;
+        }
     }
 }
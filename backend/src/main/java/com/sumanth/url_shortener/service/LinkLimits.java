@@ -0,0 +1,192 @@
+package com.sumanth.url_shortener.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import com.sumanth.url_shortener.exception.InvalidExpiryException;
+import com.sumanth.url_shortener.exception.UrlExpiredException;
+import com.sumanth.url_shortener.model.UrlMapping;
+
+/**
+ * Enforces {@code expiresAt} and {@code maxClicks} on the redirect path.
+ * <p>
+ * Both limits travel in the {@link CachedUrl} value, so a cached redirect
+ * checks the expiry without any I/O. A capped link costs one Redis call per
+ * redirect, which increments a counter shared by every instance. The counter
+ * is seeded from the stored {@code clickCount} whenever the link is loaded
+ * from MongoDB, and again if it has gone missing while the link was still
+ * cached. It lives as
+ * long as the link: until {@code expiresAt}, or for good if there is none,
+ * since a counter that expired early would hand out another
+ * {@code maxClicks} redirects.
+ * <p>
+ * Dead mappings are removed by a TTL index on {@code expiresAt}. A link that
+ * runs out of clicks gets {@code expiresAt = now}, so the same index removes
+ * it within a minute, and its cache entries are dropped at once.
+ */
+@Service
+public class LinkLimits {
+
+    static final String COUNTER_PREFIX = "url:clicks:cap:";
+
+    /**
+     * INCR that does not create the counter: returns -1 if it is missing, so a
+     * counter seeded at zero is not mistaken for one that was evicted.
+     */
+    private static final RedisScript<Long> INCREMENT_EXISTING = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then
+              return -1
+            end
+            return redis.call('INCR', KEYS[1])
+            """, Long.class);
+
+    private static final Logger logger = LoggerFactory.getLogger(LinkLimits.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final UrlCacheService urlCache;
+
+    public LinkLimits(MongoTemplate mongoTemplate, StringRedisTemplate redisTemplate, UrlCacheService urlCache) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisTemplate = redisTemplate;
+        this.urlCache = urlCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            // Documents without expiresAt are never touched by the TTL monitor
+            mongoTemplate.indexOps(UrlMapping.class).createIndex(
+                    new Index().on("expiresAt", Sort.Direction.ASC).expire(Duration.ZERO).named("expiresAt_ttl"));
+        } catch (Exception e) {
+            logger.error("Failed to create the expiresAt TTL index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @throws InvalidExpiryException if the expiry is not in the future or
+     *                                the cap is not positive.
+     */
+    public void validate(Instant expiresAt, Long maxClicks) {
+        if (expiresAt != null && !expiresAt.isAfter(Instant.now())) {
+            throw new InvalidExpiryException("Expiry must be in the future");
+        }
+        if (maxClicks != null && maxClicks < 1) {
+            throw new InvalidExpiryException("Click limit must be at least 1");
+        }
+    }
+
+    /**
+     * Checks a limited link before redirecting and counts the click against
+     * its cap. Redis errors let the click through rather than fail it.
+     *
+     * @return the long URL.
+     * @throws UrlExpiredException if the link expired or used up its clicks.
+     */
+    public String admit(String key, String shortCode, CachedUrl url) {
+        if (url.isExpired(System.currentTimeMillis())) {
+            throw new UrlExpiredException(shortCode);
+        }
+        if (url.maxClicks() == 0) {
+            return url.longUrl();
+        }
+
+        Long clicks;
+        try {
+            clicks = redisTemplate.execute(INCREMENT_EXISTING, List.of(COUNTER_PREFIX + key));
+            if (clicks != null && clicks < 0) {
+                // Evicted, or never seeded: continue from the stored count rather than from zero
+                clicks = reseed(key, shortCode, url);
+            }
+        } catch (UrlExpiredException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.warn("Failed to count click on capped link {}: {}", key, e.getMessage());
+            return url.longUrl();
+        }
+        if (clicks != null && clicks > url.maxClicks()) {
+            if (clicks == url.maxClicks() + 1) {
+                exhaust(key);
+            }
+            throw new UrlExpiredException(shortCode);
+        }
+        return url.longUrl();
+    }
+
+    /**
+     * Starts the shared counter of a capped link at its stored click count,
+     * unless another instance already has.
+     */
+    public void seed(String key, UrlMapping mapping) {
+        if (mapping.getMaxClicks() == null) {
+            return;
+        }
+        long expiresAtMillis = mapping.getExpiresAt() != null ? mapping.getExpiresAt().toEpochMilli() : 0;
+        try {
+            seedCounter(key, mapping.getClickCount(), expiresAtMillis);
+        } catch (Exception e) {
+            logger.warn("Failed to seed click counter for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void exhaust(String key) {
+        try {
+            mongoTemplate.updateFirst(new Query(ShortDomains.criteria(key)),
+                    new Update().set("expiresAt", Instant.now()), UrlMapping.class);
+            urlCache.evict(key);
+        } catch (Exception e) {
+            // The counter still rejects every further click; only the cleanup is lost
+            logger.warn("Failed to expire {} after its last click: {}", key, e.getMessage());
+        }
+    }
+
+    private void seedCounter(String key, long clickCount, long expiresAtMillis) {
+        String clicks = Long.toString(clickCount);
+        if (expiresAtMillis == 0) {
+            redisTemplate.opsForValue().setIfAbsent(COUNTER_PREFIX + key, clicks);
+        } else {
+            redisTemplate.opsForValue().setIfAbsent(COUNTER_PREFIX + key, clicks, counterTtl(expiresAtMillis));
+        }
+    }
+
+    /**
+     * Seeds a missing counter from the stored count, then counts this click.
+     * Instances that find it missing at the same time all seed with SET NX,
+     * so the stored count is added only once.
+     *
+     * @return the counter after this click.
+     * @throws UrlExpiredException if the link is gone or already used up.
+     */
+    private long reseed(String key, String shortCode, CachedUrl url) {
+        Query query = new Query(ShortDomains.criteria(key));
+        query.fields().include("clickCount", "expiresAt").exclude("_id");
+        UrlMapping stored = mongoTemplate.findOne(query, UrlMapping.class);
+        if (stored == null || (stored.getExpiresAt() != null && !stored.getExpiresAt().isAfter(Instant.now()))) {
+            // Removed by the TTL index, or expired by exhaust() while still cached
+            urlCache.evict(key);
+            throw new UrlExpiredException(shortCode);
+        }
+        seedCounter(key, stored.getClickCount(), url.expiresAtMillis());
+        Long clicks = redisTemplate.opsForValue().increment(COUNTER_PREFIX + key);
+        return clicks != null ? clicks : stored.getClickCount() + 1;
+    }
+
+    private static Duration counterTtl(long expiresAtMillis) {
+        return Duration.ofMillis(Math.max(1, expiresAtMillis - System.currentTimeMillis()));
+    }
+}
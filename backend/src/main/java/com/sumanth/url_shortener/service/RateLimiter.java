@@ -0,0 +1,226 @@
+package com.sumanth.url_shortener.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sumanth.url_shortener.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Two-tier rate limiter for the public endpoints, keyed by client (a user id
+ * or an IP address).
+ * <p>
+ * The first tier is a {@link TokenBucket} per client on this instance: it
+ * absorbs bursts, rejects a flood without any I/O and costs one CAS on the
+ * request path. The second tier is a sliding-window counter in Redis, so a
+ * client spread over many instances is still held to {@code per-window}
+ * requests overall. It is updated by an atomic Lua script once every
+ * {@code sync-batch} admitted requests per client, not on every request;
+ * a client found over the limit is refused locally until the window says it
+ * may retry. A client can therefore overshoot the cluster limit by up to
+ * {@code sync-batch} requests per instance.
+ * <p>
+ * If Redis fails the local tier still applies; requests are not refused
+ * because the limiter itself is unavailable.
+ */
+@Service
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimiter {
+
+    public enum Scope {
+        REDIRECT, SHORTEN, SHORTEN_BATCH
+    }
+
+    /**
+     * @param perWindow requests per client per window across all instances;
+     *                  0 turns the Redis tier off.
+     */
+    public record Limit(double perSecond, int burst, long perWindow, int syncBatch) {
+    }
+
+    static final String KEY_PREFIX = "url:ratelimit:";
+
+    /**
+     * Sliding-window counter: adds the hits to this window's count and weighs
+     * the previous window's count by how much of it still overlaps the
+     * sliding window. Returns 0 if the client is within the limit, otherwise
+     * the milliseconds until it will be.
+     */
+    private static final RedisScript<Long> SLIDING_WINDOW = new DefaultRedisScript<>("""
+            local hits = tonumber(ARGV[1])
+            local limit = tonumber(ARGV[2])
+            local window = tonumber(ARGV[3])
+            local elapsed = tonumber(ARGV[4])
+            local current = redis.call('INCRBY', KEYS[1], hits)
+            if current == hits then
+              redis.call('PEXPIRE', KEYS[1], window * 2)
+            end
+            local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+            if previous * (window - elapsed) / window + current <= limit then
+              return 0
+            end
+            if current >= limit then
+              return window - elapsed
+            end
+            return math.max(1, math.ceil(window - elapsed - (limit - current) * window / previous))
+            """, Long.class);
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final long windowMillis;
+    private final Map<Scope, Policy> policies = new EnumMap<>(Scope.class);
+    private final Counter redisErrors;
+
+    private static final class Client {
+        final TokenBucket bucket;
+        final AtomicInteger unsynced = new AtomicInteger();
+        volatile long blockedUntilMillis;
+
+        Client(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private static final class Policy {
+        final String name;
+        final Limit limit;
+        final Cache<String, Client> clients;
+        final Counter allowed;
+        final Counter rejectedLocal;
+        final Counter rejectedCluster;
+
+        Policy(Scope scope, Limit limit, long maxClients, Duration window, MeterRegistry registry) {
+            this.name = scope.name().toLowerCase(Locale.ROOT);
+            this.limit = limit;
+            // An idle client's bucket is full again well within a window
+            this.clients = Caffeine.newBuilder()
+                    .maximumSize(maxClients)
+                    .expireAfterAccess(window)
+                    .build();
+            this.allowed = requests(registry, name, "allowed");
+            this.rejectedLocal = requests(registry, name, "rejected_local");
+            this.rejectedCluster = requests(registry, name, "rejected_cluster");
+            Gauge.builder("url.ratelimit.clients", clients, Cache::estimatedSize)
+                    .tag("scope", name)
+                    .register(registry);
+        }
+
+        private static Counter requests(MeterRegistry registry, String scope, String result) {
+            return Counter.builder("url.ratelimit.requests")
+                    .tag("scope", scope)
+                    .tag("result", result)
+                    .register(registry);
+        }
+    }
+
+    public RateLimiter(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry, Duration window,
+            long maxClients, Map<Scope, Limit> limits) {
+        this.redisTemplate = redisTemplate;
+        this.windowMillis = window.toMillis();
+        limits.forEach((scope, limit) -> policies.put(scope,
+                new Policy(scope, limit, maxClients, window, meterRegistry)));
+        this.redisErrors = Counter.builder("url.ratelimit.redis.errors")
+                .description("Window updates that failed and let the requests through")
+                .register(meterRegistry);
+    }
+
+    @Autowired
+    public RateLimiter(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+            @Value("${app.rate-limit.window:1m}") Duration window,
+            @Value("${app.rate-limit.max-clients:100000}") long maxClients,
+            @Value("${app.rate-limit.redirect.per-second:20}") double redirectPerSecond,
+            @Value("${app.rate-limit.redirect.burst:100}") int redirectBurst,
+            @Value("${app.rate-limit.redirect.per-window:1200}") long redirectPerWindow,
+            @Value("${app.rate-limit.redirect.sync-batch:10}") int redirectSyncBatch,
+            @Value("${app.rate-limit.shorten.per-second:2}") double shortenPerSecond,
+            @Value("${app.rate-limit.shorten.burst:20}") int shortenBurst,
+            @Value("${app.rate-limit.shorten.per-window:60}") long shortenPerWindow,
+            @Value("${app.rate-limit.shorten.sync-batch:1}") int shortenSyncBatch,
+            @Value("${app.rate-limit.shorten-batch.per-second:0.1}") double batchPerSecond,
+            @Value("${app.rate-limit.shorten-batch.burst:3}") int batchBurst,
+            @Value("${app.rate-limit.shorten-batch.per-window:6}") long batchPerWindow,
+            @Value("${app.rate-limit.shorten-batch.sync-batch:1}") int batchSyncBatch) {
+        this(redisTemplate, meterRegistry, window, maxClients, Map.of(
+                Scope.REDIRECT, new Limit(redirectPerSecond, redirectBurst, redirectPerWindow, redirectSyncBatch),
+                Scope.SHORTEN, new Limit(shortenPerSecond, shortenBurst, shortenPerWindow, shortenSyncBatch),
+                Scope.SHORTEN_BATCH, new Limit(batchPerSecond, batchBurst, batchPerWindow, batchSyncBatch)));
+    }
+
+    /**
+     * Counts one request by {@code client} against the scope's limits.
+     *
+     * @return 0 if the request may proceed, otherwise the milliseconds until
+     *         the client should retry.
+     */
+    public long acquire(Scope scope, String client) {
+        Policy policy = policies.get(scope);
+        Client state = policy.clients.get(client, key -> new Client(
+                new TokenBucket(policy.limit.perSecond(), policy.limit.burst(), System.nanoTime())));
+
+        long now = System.currentTimeMillis();
+        long blockedFor = state.blockedUntilMillis - now;
+        if (blockedFor > 0) {
+            policy.rejectedCluster.increment();
+            return blockedFor;
+        }
+        long waitNanos = state.bucket.tryAcquire(System.nanoTime());
+        if (waitNanos > 0) {
+            policy.rejectedLocal.increment();
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+
+        if (policy.limit.perWindow() > 0 && state.unsynced.incrementAndGet() >= policy.limit.syncBatch()) {
+            long retryAfter = sync(policy, client, state, now);
+            if (retryAfter > 0) {
+                policy.rejectedCluster.increment();
+                return retryAfter;
+            }
+        }
+        policy.allowed.increment();
+        return 0;
+    }
+
+    private long sync(Policy policy, String client, Client state, long now) {
+        int hits = state.unsynced.getAndSet(0);
+        if (hits == 0) {
+            // Another request for this client synced first
+            return 0;
+        }
+        long window = now / windowMillis;
+        // Both keys hash to one slot, as a script on Redis Cluster requires
+        String prefix = KEY_PREFIX + "{" + policy.name + ":" + client + "}:";
+        try {
+            Long retryAfter = redisTemplate.execute(SLIDING_WINDOW, List.of(prefix + window, prefix + (window - 1)),
+                    Integer.toString(hits), Long.toString(policy.limit.perWindow()), Long.toString(windowMillis),
+                    Long.toString(now % windowMillis));
+            if (retryAfter == null || retryAfter <= 0) {
+                return 0;
+            }
+            state.blockedUntilMillis = now + retryAfter;
+            return retryAfter;
+        } catch (Exception e) {
+            redisErrors.increment();
+            logger.debug("Rate limit window update failed for {}: {}", client, e.getMessage());
+            return 0;
+        }
+    }
+}
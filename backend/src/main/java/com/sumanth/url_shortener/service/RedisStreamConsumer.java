@@ -1,79 +1,220 @@
 package com.sumanth.url_shortener.service;
 
 import com.sumanth.url_shortener.model.UrlMapping;
-import org.springframework.data.mongodb.core.BulkOperations;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.Update;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XAutoClaimArgs;
+import io.lettuce.core.models.stream.ClaimedMessages;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.stream.Consumer;
 import org.springframework.data.redis.connection.stream.MapRecord;
-import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Folds click events from the Redis stream into {@link UrlMapping#getClickCount()}
+ * and the click time series.
+ * <p>
+ * Every instance joins the same consumer group, so Redis hands each entry to
+ * exactly one of them. Entries are acknowledged (and deleted) only after the
+ * Mongo bulk write succeeded. Entries left pending by an instance that died
+ * mid-batch are taken over with XAUTOCLAIM once they have been idle for
+ * {@code claimMinIdle}. Delivery is at-least-once: a crash between the bulk
+ * write and the acknowledgement still counts that batch twice.
+ */
 @Component
+@ConditionalOnProperty(name = "app.clicks.mode", havingValue = "stream", matchIfMissing = true)
 public class RedisStreamConsumer {
 
-    private static final String STREAM_KEY = "url:click:stream";
+    private static final Logger logger = LoggerFactory.getLogger(RedisStreamConsumer.class);
+
+    static final String STREAM_KEY = "url:click:stream";
+    static final String GROUP = "click-aggregators";
+
+    private static final byte[] RAW_STREAM_KEY = STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RAW_SHORT_CODE = "shortCode".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RAW_TIMESTAMP = "timestamp".getBytes(StandardCharsets.UTF_8);
+
     private final StringRedisTemplate redisTemplate;
-    private final MongoTemplate mongoTemplate;
+    private final ClickCountWriter clickCountWriter;
+    private final String consumerName;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final Duration claimMinIdle;
+    private final DistributionSummary batchSizes;
+    // Entries not yet acknowledged by any consumer, as of the last poll
+    private final AtomicLong streamLength = new AtomicLong();
 
-    public RedisStreamConsumer(StringRedisTemplate redisTemplate, MongoTemplate mongoTemplate) {
+    private volatile boolean groupReady;
+
+    public RedisStreamConsumer(StringRedisTemplate redisTemplate, ClickCountWriter clickCountWriter,
+            @Value("${app.instance-name:${HOSTNAME:}}") String consumerName,
+            @Value("${app.click-stream.batch-size:500}") int batchSize,
+            @Value("${app.click-stream.max-batches-per-poll:20}") int maxBatchesPerPoll,
+            @Value("${app.click-stream.claim-min-idle:60s}") Duration claimMinIdle,
+            MeterRegistry meterRegistry) {
         this.redisTemplate = redisTemplate;
-        this.mongoTemplate = mongoTemplate;
+        this.clickCountWriter = clickCountWriter;
+        this.consumerName = consumerName == null || consumerName.isBlank()
+                ? "consumer-" + UUID.randomUUID()
+                : consumerName;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.claimMinIdle = claimMinIdle;
+        this.batchSizes = DistributionSummary.builder("clicks.consume.batch")
+                .description("Click events applied per bulk write")
+                .baseUnit("events")
+                .register(meterRegistry);
+        Gauge.builder("clicks.stream.length", streamLength, AtomicLong::get)
+                .description("Entries in the click stream after the last poll")
+                .register(meterRegistry);
     }
 
-    @Scheduled(fixedDelay = 30000) // 30 seconds
+    @Scheduled(fixedDelayString = "${app.click-stream.poll-interval-ms:1000}")
     public void consumeClickEvents() {
         try {
-            // Read messages from the beginning of the stream
-            List<MapRecord<String, Object, Object>> messages = redisTemplate.opsForStream()
-                    .read(StreamOffset.fromStart(STREAM_KEY));
+            ensureGroup();
+
+            // 1. Take over entries a dead consumer read but never acknowledged
+            claimStaleEntries();
+
+            // 2. Read new entries in bounded batches until the stream is drained
+            readNewEntries();
+
+            // 3. What is left is the backlog this poll could not drain
+            Long length = redisTemplate.opsForStream().size(STREAM_KEY);
+            streamLength.set(length == null ? 0 : length);
+
+        } catch (Exception e) {
+            if (RedisStreams.isRedisError(e, "NOGROUP")) {
+                // Stream or group was removed (e.g. Redis flushed); recreate on the next poll
+                groupReady = false;
+            }
+            logger.error("Error consuming click events: {}", e.getMessage(), e);
+        }
+    }
+
+    private void readNewEntries() {
+        Consumer consumer = Consumer.from(GROUP, consumerName);
+        StreamReadOptions options = StreamReadOptions.empty().count(batchSize);
+        for (int batch = 0; batch < maxBatchesPerPoll; batch++) {
+            List<MapRecord<String, Object, Object>> messages = RedisStreams.readNew(redisTemplate, consumer, options,
+                    STREAM_KEY);
 
             if (messages == null || messages.isEmpty()) {
                 return;
             }
 
-            Map<String, Long> shortCodeCounts = new HashMap<>();
-            List<String> messageIds = new ArrayList<>();
-
+            ClickBatch clicks = new ClickBatch();
+            List<RecordId> messageIds = new ArrayList<>(messages.size());
             for (MapRecord<String, Object, Object> message : messages) {
-                Map<Object, Object> value = message.getValue();
-                String shortCode = (String) value.get("shortCode");
-
-                if (shortCode != null) {
-                    shortCodeCounts.put(shortCode, shortCodeCounts.getOrDefault(shortCode, 0L) + 1);
-                }
-                messageIds.add(message.getId().toString());
+                clicks.add((String) message.getValue().get("shortCode"),
+                        clickTime((String) message.getValue().get("timestamp"), message.getId()));
+                messageIds.add(message.getId());
             }
+            applyAndAcknowledge(clicks, messageIds);
 
-            if (!shortCodeCounts.isEmpty()) {
-                BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class);
+            if (messages.size() < batchSize) {
+                return;
+            }
+        }
+    }
 
-                for (Map.Entry<String, Long> entry : shortCodeCounts.entrySet()) {
-                    Query query = new Query(Criteria.where("shortCode").is(entry.getKey()));
-                    Update update = new Update().inc("clickCount", entry.getValue());
-                    bulkOps.updateOne(query, update);
-                }
+    private void claimStaleEntries() {
+        String start = RedisStreams.CLAIM_START;
+        for (int batch = 0; batch < maxBatchesPerPoll; batch++) {
+            XAutoClaimArgs<byte[]> args = XAutoClaimArgs.Builder
+                    .xautoclaim(io.lettuce.core.Consumer.from(GROUP.getBytes(StandardCharsets.UTF_8),
+                            consumerName.getBytes(StandardCharsets.UTF_8)), claimMinIdle, start)
+                    .count(batchSize);
 
-                bulkOps.execute();
+            ClaimedMessages<byte[], byte[]> claimed = redisTemplate.execute(
+                    (RedisCallback<ClaimedMessages<byte[], byte[]>>) connection ->
+                            RedisStreams.autoClaim(connection, RAW_STREAM_KEY, args));
+            if (claimed == null) {
+                return;
             }
 
-            // Acknowledge/Delete processed messages
+            ClickBatch clicks = new ClickBatch();
+            List<RecordId> messageIds = new ArrayList<>(claimed.getMessages().size());
+            for (StreamMessage<byte[], byte[]> message : claimed.getMessages()) {
+                RecordId id = RecordId.of(message.getId());
+                clicks.add(RedisStreams.fieldOf(message, RAW_SHORT_CODE),
+                        clickTime(RedisStreams.fieldOf(message, RAW_TIMESTAMP), id));
+                messageIds.add(id);
+            }
             if (!messageIds.isEmpty()) {
-                redisTemplate.opsForStream().delete(STREAM_KEY, messageIds.toArray(new String[0]));
+                applyAndAcknowledge(clicks, messageIds);
+            }
+
+            // XAUTOCLAIM returns 0-0 once it has scanned the whole pending list
+            start = claimed.getId();
+            if (RedisStreams.CLAIM_START.equals(start)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * The publisher stamps each event; the entry ID's millisecond part is the
+     * time Redis appended it, which is close enough for older entries without one.
+     */
+    private static Instant clickTime(String timestamp, RecordId id) {
+        if (timestamp != null) {
+            try {
+                return Instant.parse(timestamp);
+            } catch (DateTimeParseException e) {
+                // fall through to the entry ID
             }
+        }
+        return id.shouldBeAutoGenerated() ? Instant.now() : Instant.ofEpochMilli(id.getTimestamp());
+    }
 
+    private void applyAndAcknowledge(ClickBatch clicks, List<RecordId> messageIds) {
+        clickCountWriter.applyClicks(clicks);
+        batchSizes.record(messageIds.size());
+
+        // Acknowledge, then delete so the stream does not grow; one round trip
+        RecordId[] ids = messageIds.toArray(new RecordId[0]);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.streamCommands().xAck(RAW_STREAM_KEY, GROUP, ids);
+            connection.streamCommands().xDel(RAW_STREAM_KEY, ids);
+            return null;
+        });
+    }
+
+    private void ensureGroup() {
+        if (groupReady) {
+            return;
+        }
+        try {
+            // Start at 0 so entries left behind by the old single-reader consumer are counted
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(RAW_STREAM_KEY, GROUP, ReadOffset.from("0"), true));
         } catch (Exception e) {
-            System.err.println("Error consuming click events: " + e.getMessage());
-            e.printStackTrace();
+            if (!RedisStreams.isRedisError(e, "BUSYGROUP")) {
+                throw e;
+            }
         }
+        groupReady = true;
     }
 }
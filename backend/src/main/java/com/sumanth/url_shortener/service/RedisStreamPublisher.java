@@ -1,38 +1,222 @@
 package com.sumanth.url_shortener.service;
 
+import com.sumanth.url_shortener.util.ClickRingBuffer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.stream.MapRecord;
 import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
+/**
+ * Publishes click events to the Redis stream without making the redirect wait
+ * for Redis.
+ * <p>
+ * The request thread only puts the event into a {@link ClickRingBuffer}. A
+ * single background thread drains the ring and sends the events with pipelined
+ * XADDs, either as soon as a full batch is waiting or every flush interval.
+ * When the ring is full the overload policy decides: DROP counts and discards
+ * the event, BLOCK waits up to {@code blockTimeout} for room first.
+ */
 @Service
-public class RedisStreamPublisher {
+@ConditionalOnProperty(name = "app.clicks.mode", havingValue = "stream", matchIfMissing = true)
+public class RedisStreamPublisher implements ClickRecorder, MeterBinder {
+
+    public enum OverloadPolicy {
+        DROP, BLOCK
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisStreamPublisher.class);
 
     private static final String STREAM_KEY = "url:click:stream";
+    private static final byte[] RAW_STREAM_KEY = STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RAW_SHORT_CODE = "shortCode".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RAW_TIMESTAMP = "timestamp".getBytes(StandardCharsets.UTF_8);
+
     private final StringRedisTemplate redisTemplate;
+    private final ClickRingBuffer ring;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverloadPolicy overloadPolicy;
+    private final long blockTimeoutNanos;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
 
-    public RedisStreamPublisher(StringRedisTemplate redisTemplate) {
+    // Reused by the flusher thread only
+    private final String[] batchShortCodes;
+    private final long[] batchTimestamps;
+    private int batchCount;
+
+    private final boolean virtualThreads;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public RedisStreamPublisher(StringRedisTemplate redisTemplate,
+            @Value("${app.click-publisher.capacity:65536}") int capacity,
+            @Value("${app.click-publisher.batch-size:512}") int batchSize,
+            @Value("${app.click-publisher.flush-interval:50ms}") Duration flushInterval,
+            @Value("${app.click-publisher.overload-policy:drop}") OverloadPolicy overloadPolicy,
+            @Value("${app.click-publisher.block-timeout:5ms}") Duration blockTimeout,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.redisTemplate = redisTemplate;
+        this.ring = new ClickRingBuffer(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overloadPolicy = overloadPolicy;
+        this.blockTimeoutNanos = blockTimeout.toNanos();
+        this.batchShortCodes = new String[batchSize];
+        this.batchTimestamps = new long[batchSize];
+        this.virtualThreads = virtualThreads;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        Thread.Builder builder = virtualThreads
+                ? Thread.ofVirtual()
+                : Thread.ofPlatform().daemon();
+        flusher = builder.name("click-publisher").start(this::runFlusher);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (flusher == null) {
+            return;
+        }
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    @Override
+    public void recordClick(String shortCode) {
+        publishClickEvent(shortCode);
     }
 
     public void publishClickEvent(String shortCode) {
-        try {
-            Map<String, String> fields = new HashMap<>();
-            fields.put("shortCode", shortCode);
-            fields.put("timestamp", Instant.now().toString());
+        long now = System.currentTimeMillis();
+        if (ring.offer(shortCode, now)) {
+            return;
+        }
+
+        if (overloadPolicy == OverloadPolicy.BLOCK) {
+            long deadline = System.nanoTime() + blockTimeoutNanos;
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(10_000);
+                if (ring.offer(shortCode, now)) {
+                    return;
+                }
+            }
+        }
 
-            MapRecord<String, String, String> record = StreamRecords.newRecord()
-                    .ofStrings(fields)
-                    .withStreamKey(STREAM_KEY);
+        // Best-effort: a lost click must never slow the redirect down
+        dropped.increment();
+    }
 
-            redisTemplate.opsForStream().add(record);
+    private void runFlusher() {
+        while (running) {
+            int drained = flushBatch();
+            if (drained < batchSize) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+        }
+        // Send whatever is left before shutting down
+        int drained;
+        do {
+            drained = flushBatch();
+        } while (drained > 0);
+    }
+
+    private int flushBatch() {
+        batchCount = 0;
+        int drained = ring.drain(this::addToBatch, batchSize);
+
+        if (drained == 0) {
+            return 0;
+        }
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (int i = 0; i < drained; i++) {
+                    xAdd(connection, batchShortCodes[i], batchTimestamps[i]);
+                }
+                return null;
+            });
+            published.add(drained);
         } catch (Exception e) {
-            // Best-effort: Log error but don't block main flow
-            System.err.println("Failed to publish click event for " + shortCode + ": " + e.getMessage());
+            failed.add(drained);
+            logger.warn("Failed to publish {} click events: {}", drained, e.getMessage());
+        } finally {
+            for (int i = 0; i < drained; i++) {
+                batchShortCodes[i] = null;
+            }
         }
+        return drained;
+    }
+
+    private void addToBatch(String shortCode, long timestamp) {
+        batchShortCodes[batchCount] = shortCode;
+        batchTimestamps[batchCount] = timestamp;
+        batchCount++;
+    }
+
+    private static void xAdd(RedisConnection connection, String shortCode, long timestamp) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>(4);
+        fields.put(RAW_SHORT_CODE, shortCode.getBytes(StandardCharsets.UTF_8));
+        fields.put(RAW_TIMESTAMP, Instant.ofEpochMilli(timestamp).toString().getBytes(StandardCharsets.UTF_8));
+
+        MapRecord<byte[], byte[], byte[]> record = StreamRecords.newRecord()
+                .in(RAW_STREAM_KEY)
+                .ofMap(fields);
+        connection.streamCommands().xAdd(record);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        publishCounter(registry, "published", published);
+        publishCounter(registry, "dropped", dropped);
+        publishCounter(registry, "failed", failed);
+        Gauge.builder("clicks.publish.queued", ring, ClickRingBuffer::size)
+                .description("Click events waiting in the ring for the flusher")
+                .register(registry);
+    }
+
+    private static void publishCounter(MeterRegistry registry, String result, LongAdder count) {
+        FunctionCounter.builder("clicks.publish", count, LongAdder::sum)
+                .tag("result", result)
+                .baseUnit("events")
+                .register(registry);
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", ring.size());
+        stats.put("capacity", ring.capacity());
+        stats.put("published", published.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("failed", failed.sum());
+        return stats;
     }
 }
@@ -0,0 +1,69 @@
+package com.sumanth.url_shortener.service;
+
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XAutoClaimArgs;
+import io.lettuce.core.api.async.RedisStreamAsyncCommands;
+import io.lettuce.core.models.stream.ClaimedMessages;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stream helpers shared by the consumers of our Redis streams.
+ */
+final class RedisStreams {
+
+    static final String CLAIM_START = "0-0";
+
+    private RedisStreams() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static ClaimedMessages<byte[], byte[]> autoClaim(RedisConnection connection, byte[] streamKey,
+            XAutoClaimArgs<byte[]> args) {
+        // Spring Data Redis has no XAUTOCLAIM yet, so go through the Lettuce connection
+        RedisStreamAsyncCommands<byte[], byte[]> commands = (RedisStreamAsyncCommands<byte[], byte[]>) connection
+                .getNativeConnection();
+        try {
+            return commands.xautoclaim(streamKey, args).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("XAUTOCLAIM failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * XREADGROUP of the entries not yet delivered to the consumer's group.
+     */
+    // read takes the offsets as generic varargs; the one-element array is only read
+    @SuppressWarnings("unchecked")
+    static List<MapRecord<String, Object, Object>> readNew(StringRedisTemplate redisTemplate, Consumer consumer,
+            StreamReadOptions options, String streamKey) {
+        return redisTemplate.opsForStream()
+                .read(consumer, options, StreamOffset.create(streamKey, ReadOffset.lastConsumed()));
+    }
+
+    static String fieldOf(StreamMessage<byte[], byte[]> message, byte[] name) {
+        // byte[] keys have identity equality, so the body map cannot be looked up directly
+        for (Map.Entry<byte[], byte[]> field : message.getBody().entrySet()) {
+            if (Arrays.equals(name, field.getKey())) {
+                return new String(field.getValue(), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    static boolean isRedisError(Exception e, String errorCode) {
+        return String.valueOf(NestedExceptionUtils.getMostSpecificCause(e).getMessage()).startsWith(errorCode);
+    }
+}
@@ -0,0 +1,216 @@
+package com.sumanth.url_shortener.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.util.BloomFilter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Answers "can this short code exist?" without I/O, so lookups of codes that
+ * were never issued do not reach Redis or MongoDB.
+ * <p>
+ * A {@link BloomFilter} over every issued code is built from
+ * {@code url_mappings} once the application is ready, and rebuilt every
+ * {@code rebuild-interval} so it is resized as the collection grows. Until
+ * the first build finishes every code is let through. New codes are added
+ * locally and announced on the {@value #CHANNEL} channel so other instances
+ * add them too; a missed announcement is repaired by the next rebuild. Codes
+ * the filter lets through but MongoDB does not have (false positives) are
+ * remembered for {@code negative-ttl}.
+ */
+@Service
+public class ShortCodeFilter implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShortCodeFilter.class);
+
+    public static final String CHANNEL = "url:codes:new";
+
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final Duration rebuildInterval;
+    private final Cache<String, Boolean> knownMissing;
+
+    // Both filters receive new codes while a rebuild is running
+    private volatile BloomFilter active;
+    private volatile BloomFilter building;
+    private ScheduledExecutorService rebuildExecutor;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public ShortCodeFilter(MongoTemplate mongoTemplate, StringRedisTemplate redisTemplate,
+            @Value("${app.short-code-filter.enabled:true}") boolean enabled,
+            @Value("${app.short-code-filter.expected-insertions:1000000}") long expectedInsertions,
+            @Value("${app.short-code-filter.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${app.short-code-filter.rebuild-interval:6h}") Duration rebuildInterval,
+            @Value("${app.short-code-filter.negative-ttl:60s}") Duration negativeTtl,
+            @Value("${app.short-code-filter.negative-max-size:100000}") long negativeMaxSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildInterval = rebuildInterval;
+        this.knownMissing = Caffeine.newBuilder()
+                .maximumSize(negativeMaxSize)
+                .expireAfterWrite(negativeTtl)
+                .build();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        rebuildExecutor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("short-code-filter").daemon().factory());
+        rebuildExecutor.scheduleWithFixedDelay(this::rebuild, 0, rebuildInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (rebuildExecutor != null) {
+            rebuildExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return false only if the code was certainly never issued, or was just
+     *         confirmed missing.
+     */
+    public boolean mightExist(String shortCode) {
+        if (knownMissing.getIfPresent(shortCode) != null) {
+            negativeHits.increment();
+            return false;
+        }
+        BloomFilter filter = active;
+        if (filter != null && !filter.mightContain(shortCode)) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called when a code the filter let through is not in MongoDB.
+     */
+    public void recordMissing(String shortCode) {
+        falsePositives.increment();
+        knownMissing.put(shortCode, Boolean.TRUE);
+    }
+
+    /**
+     * Adds newly issued codes here and on every other instance, with one
+     * newline-separated message.
+     */
+    public void add(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+        shortCodes.forEach(this::addLocally);
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.convertAndSend(CHANNEL, String.join("\n", shortCodes));
+        } catch (Exception e) {
+            // The next rebuild on the other instances picks the codes up
+            logger.warn("Failed to announce {} short codes: {}", shortCodes.size(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        for (String shortCode : new String(message.getBody(), StandardCharsets.UTF_8).split("\n")) {
+            if (!shortCode.isEmpty()) {
+                addLocally(shortCode);
+            }
+        }
+    }
+
+    private void addLocally(String shortCode) {
+        knownMissing.invalidate(shortCode);
+        BloomFilter filter = active;
+        if (filter != null) {
+            filter.put(shortCode);
+        }
+        filter = building;
+        if (filter != null) {
+            filter.put(shortCode);
+        }
+    }
+
+    void rebuild() {
+        try {
+            long startedAt = System.nanoTime();
+            // Leave headroom so the filter stays near its target rate until the next rebuild
+            long size = Math.max(expectedInsertions, mongoTemplate.estimatedCount(UrlMapping.class) * 2);
+            BloomFilter filter = new BloomFilter(size, falsePositiveRate);
+            building = filter;
+
+            Query query = new Query();
+            query.fields().include("shortCode", "domain").exclude("_id");
+            long count;
+            try (Stream<UrlMapping> mappings = mongoTemplate.stream(query, UrlMapping.class)) {
+                count = mappings.filter(mapping -> mapping.getShortCode() != null)
+                        .map(mapping -> ShortDomains.key(mapping.getDomain(), mapping.getShortCode()))
+                        .peek(filter::put)
+                        .count();
+            }
+
+            active = filter;
+            building = null;
+            logger.info("Built short code filter over {} codes in {} ms", count,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        } catch (Exception e) {
+            building = null;
+            logger.error("Failed to build short code filter: {}", e.getMessage(), e);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        BloomFilter filter = active;
+        stats.put("enabled", enabled);
+        stats.put("ready", filter != null);
+        if (filter != null) {
+            stats.put("bitSize", filter.bitSize());
+            stats.put("hashFunctions", filter.hashFunctions());
+            stats.put("saturation", filter.saturation());
+            stats.put("expectedFalsePositiveRate", filter.expectedFalsePositiveRate());
+            stats.put("approximateCodes", filter.approximateElementCount());
+        }
+        stats.put("rejected", rejected.sum());
+        stats.put("negativeCacheHits", negativeHits.sum());
+        stats.put("falsePositives", falsePositives.sum());
+        stats.put("negativeCacheSize", knownMissing.estimatedSize());
+        return stats;
+    }
+}
@@ -0,0 +1,81 @@
+package com.sumanth.url_shortener.service;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import com.sumanth.url_shortener.exception.InvalidAliasException;
+
+/**
+ * The branded hosts that have their own short code namespace.
+ * <p>
+ * Codes on the default domain are stored with no {@code domain} and keyed by
+ * the bare code everywhere (caches, the short code filter, click counters),
+ * exactly as before domains existed. A code on a branded domain is keyed as
+ * {@code domain/code}; neither part can contain a slash.
+ */
+@Component
+public class ShortDomains {
+
+    private final Set<String> branded;
+
+    public ShortDomains() {
+        this(List.of());
+    }
+
+    @Autowired
+    public ShortDomains(@Value("${app.domains.branded:}") List<String> branded) {
+        this.branded = branded.stream()
+                .map(String::trim)
+                .filter(domain -> !domain.isEmpty())
+                .map(domain -> domain.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * @param host the request's host name, without the port.
+     * @return the branded domain, or null if the host is not one.
+     */
+    public String resolve(String host) {
+        if (host == null || branded.isEmpty()) {
+            return null;
+        }
+        String domain = host.toLowerCase(Locale.ROOT);
+        return branded.contains(domain) ? domain : null;
+    }
+
+    /**
+     * @return the domain to store for a shorten request; null for the default.
+     * @throws InvalidAliasException if the domain is not a configured one.
+     */
+    public String require(String domain) {
+        if (domain == null || domain.isBlank()) {
+            return null;
+        }
+        String resolved = resolve(domain.trim());
+        if (resolved == null) {
+            throw new InvalidAliasException("Unknown domain: " + domain);
+        }
+        return resolved;
+    }
+
+    public static String key(String domain, String shortCode) {
+        return domain == null ? shortCode : domain + "/" + shortCode;
+    }
+
+    /**
+     * Matches the mapping a {@link #key} was built from.
+     */
+    public static Criteria criteria(String key) {
+        int slash = key.indexOf('/');
+        return slash < 0
+                ? Criteria.where("shortCode").is(key).and("domain").is(null)
+                : Criteria.where("shortCode").is(key.substring(slash + 1)).and("domain").is(key.substring(0, slash));
+    }
+}
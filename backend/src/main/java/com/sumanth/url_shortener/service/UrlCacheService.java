@@ -0,0 +1,271 @@
+package com.sumanth.url_shortener.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Two-tier cache for shortCode -> longUrl lookups.
+ * <p>
+ * The local tier is a bounded in-JVM Caffeine cache. Caffeine's W-TinyLFU policy
+ * only admits a new entry over an eviction victim when it has been seen more
+ * often, so a burst of one-hit codes cannot push out the hot ones. The remote
+ * tier is the shared Redis cache used by every instance.
+ * <p>
+ * Two things keep a hot code from stampeding MongoDB. Concurrent misses for
+ * the same code on one instance share a single load. And a small fraction of
+ * Redis reads use GETEX to push the key's expiry out again, so a key read
+ * often enough is renewed long before it would expire; keys that are rarely
+ * read expire as usual. Redis TTLs are jittered so keys written together do
+ * not all expire together.
+ * <p>
+ * Values are {@link CachedUrl} strings. Neither tier keeps an expiring link
+ * past its expiry: its TTL in both is capped at the link's remaining life.
+ */
+@Service
+public class UrlCacheService implements MeterBinder {
+
+    private final StringRedisTemplate redisTemplate;
+    private final Cache<String, String> localCache;
+    private final Duration redisTtl;
+    private final long redisTtlJitterMillis;
+    private final double refreshProbability;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder redisMisses = new LongAdder();
+    private final LongAdder earlyRefreshes = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalescedLoads = new LongAdder();
+
+    /**
+     * A fixed 24 hour Redis TTL without jitter or early refresh.
+     */
+    public UrlCacheService(StringRedisTemplate redisTemplate, boolean localEnabled, long localMaxSize,
+            Duration localTtl) {
+        this(redisTemplate, localEnabled, localMaxSize, localTtl, Duration.ofHours(24), Duration.ZERO, 0);
+    }
+
+    @Autowired
+    public UrlCacheService(
+            StringRedisTemplate redisTemplate,
+            @Value("${app.cache.local.enabled:true}") boolean localEnabled,
+            @Value("${app.cache.local.max-size:10000}") long localMaxSize,
+            @Value("${app.cache.local.ttl:10m}") Duration localTtl,
+            @Value("${app.cache.redis.ttl:24h}") Duration redisTtl,
+            @Value("${app.cache.redis.ttl-jitter:1h}") Duration redisTtlJitter,
+            @Value("${app.cache.redis.refresh-probability:0.01}") double refreshProbability) {
+        this.redisTemplate = redisTemplate;
+        this.redisTtl = redisTtl;
+        this.redisTtlJitterMillis = redisTtlJitter.toMillis();
+        this.refreshProbability = refreshProbability;
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(localEnabled ? localMaxSize : 0)
+                .expireAfter(Expiry.<String, String>writing((shortCode, value) -> CachedUrl.ttl(value, localTtl)))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Looks the code up in the local tier, then in Redis. A Redis hit is copied
+     * into the local tier so the next lookup needs no I/O.
+     *
+     * @return the long URL, or null if neither tier has it.
+     */
+    public String get(String shortCode) {
+        String longUrl = localCache.getIfPresent(shortCode);
+        if (longUrl != null) {
+            return longUrl;
+        }
+
+        if (refreshProbability > 0 && ThreadLocalRandom.current().nextDouble() < refreshProbability) {
+            longUrl = redisTemplate.opsForValue().getAndExpire(shortCode, redisTtl());
+            if (longUrl != null) {
+                earlyRefreshes.increment();
+                if (!CachedUrl.isPlain(longUrl)) {
+                    // Do not let the refresh outlive the link
+                    redisTemplate.expire(shortCode, redisTtl(longUrl));
+                }
+            }
+        } else {
+            longUrl = redisTemplate.opsForValue().get(shortCode);
+        }
+        if (longUrl == null) {
+            redisMisses.increment();
+            return null;
+        }
+
+        redisHits.increment();
+        localCache.put(shortCode, longUrl);
+        return longUrl;
+    }
+
+    /**
+     * Like {@link #get}, but on a miss runs {@code loader} and fills both tiers.
+     * Concurrent misses for the same code wait for the first caller's load
+     * instead of running their own; they see its result or its exception.
+     *
+     * @param loader returns the long URL, or null if the code does not exist.
+     */
+    public String getOrLoad(String shortCode, Function<String, String> loader) {
+        String longUrl = get(shortCode);
+        if (longUrl != null) {
+            return longUrl;
+        }
+
+        CompletableFuture<String> load = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(shortCode, load);
+        if (running != null) {
+            coalescedLoads.increment();
+            return await(running);
+        }
+
+        try {
+            // A load that finished between our miss and putIfAbsent has filled the local tier
+            longUrl = localCache.getIfPresent(shortCode);
+            if (longUrl == null) {
+                loads.increment();
+                longUrl = loader.apply(shortCode);
+                if (longUrl != null) {
+                    put(shortCode, longUrl);
+                }
+            }
+            load.complete(longUrl);
+            return longUrl;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(shortCode, load);
+        }
+    }
+
+    private static String await(CompletableFuture<String> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    /**
+     * Fills both tiers after a database load.
+     */
+    public void put(String shortCode, String longUrl) {
+        redisTemplate.opsForValue().set(shortCode, longUrl, redisTtl(longUrl));
+        localCache.put(shortCode, longUrl);
+    }
+
+    /**
+     * Drops the code from both tiers of this instance and from Redis.
+     */
+    public void evict(String shortCode) {
+        localCache.invalidate(shortCode);
+        redisTemplate.delete(shortCode);
+    }
+
+    /**
+     * @return the Redis TTL plus a random jitter of up to {@code ttl-jitter}.
+     */
+    public Duration redisTtl() {
+        return redisTtlJitterMillis > 0
+                ? redisTtl.plusMillis(ThreadLocalRandom.current().nextLong(redisTtlJitterMillis))
+                : redisTtl;
+    }
+
+    /**
+     * @return {@link #redisTtl()}, capped at the remaining life of the link
+     *         {@code value} was encoded from.
+     */
+    public Duration redisTtl(String value) {
+        return CachedUrl.ttl(value, redisTtl());
+    }
+
+    /**
+     * Local tier only; never does I/O, so it is safe on an event loop.
+     */
+    public String getLocal(String shortCode) {
+        return localCache.getIfPresent(shortCode);
+    }
+
+    public void putLocal(String shortCode, String longUrl) {
+        localCache.put(shortCode, longUrl);
+    }
+
+    /**
+     * Publishes the same counters as {@link #stats()}; {@code url.cache.lookups}
+     * by tier and result gives the hit rate of each tier.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        lookups(registry, "local", "hit", localCache, cache -> cache.stats().hitCount());
+        lookups(registry, "local", "miss", localCache, cache -> cache.stats().missCount());
+        lookups(registry, "redis", "hit", redisHits, LongAdder::sum);
+        lookups(registry, "redis", "miss", redisMisses, LongAdder::sum);
+        FunctionCounter.builder("url.cache.refreshes", earlyRefreshes, LongAdder::sum)
+                .description("Redis reads that pushed the key's expiry out")
+                .register(registry);
+        FunctionCounter.builder("url.cache.loads", loads, LongAdder::sum)
+                .tag("result", "loaded")
+                .register(registry);
+        FunctionCounter.builder("url.cache.loads", coalescedLoads, LongAdder::sum)
+                .tag("result", "coalesced")
+                .register(registry);
+        Gauge.builder("url.cache.local.size", localCache, Cache::estimatedSize)
+                .register(registry);
+    }
+
+    private static <T> void lookups(MeterRegistry registry, String tier, String result, T state,
+            ToDoubleFunction<T> count) {
+        FunctionCounter.builder("url.cache.lookups", state, count)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats local = localCache.stats();
+
+        Map<String, Object> localStats = new LinkedHashMap<>();
+        localStats.put("hits", local.hitCount());
+        localStats.put("misses", local.missCount());
+        localStats.put("evictions", local.evictionCount());
+        localStats.put("size", localCache.estimatedSize());
+
+        Map<String, Object> redisStats = new LinkedHashMap<>();
+        redisStats.put("hits", redisHits.sum());
+        redisStats.put("misses", redisMisses.sum());
+        redisStats.put("earlyRefreshes", earlyRefreshes.sum());
+
+        Map<String, Object> loadStats = new LinkedHashMap<>();
+        loadStats.put("loads", loads.sum());
+        loadStats.put("coalesced", coalescedLoads.sum());
+        loadStats.put("inFlight", inFlight.size());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("local", localStats);
+        stats.put("redis", redisStats);
+        stats.put("database", loadStats);
+        return stats;
+    }
+}
@@ -0,0 +1,157 @@
+package com.sumanth.url_shortener.service;
+
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.util.UrlCanonicalizer;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Moves {@code url_mappings} from the 64-character hex {@code urlHash} to the
+ * 32-byte binary {@code urlDigest}.
+ * <p>
+ * On startup the unique indexes are put in place: {@code urlDigest} is added,
+ * and {@code urlHash} is recreated as sparse so the new documents, which no
+ * longer carry it, do not collide on null. If enabled, a background thread
+ * then rewrites old documents in batches, setting {@code urlDigest} and
+ * unsetting {@code urlHash}, and logs the index sizes before and after. Until
+ * it has finished, lookups also match {@code urlHash} (see
+ * {@code app.url-hash.legacy-lookup}).
+ */
+@Component
+public class UrlHashMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlHashMigration.class);
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final MongoTemplate mongoTemplate;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public UrlHashMigration(MongoTemplate mongoTemplate, UrlCanonicalizer urlCanonicalizer,
+            @Value("${app.url-hash.migration.enabled:true}") boolean enabled,
+            @Value("${app.url-hash.migration.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            ensureIndexes();
+        } catch (Exception e) {
+            logger.error("Could not prepare url_mappings indexes: {}", e.getMessage(), e);
+            return;
+        }
+        if (enabled) {
+            Thread.ofPlatform().name("url-hash-migration").daemon().start(this::migrate);
+        }
+    }
+
+    void ensureIndexes() {
+        IndexOperations indexOps = mongoTemplate.indexOps(UrlMapping.class);
+        for (IndexInfo index : indexOps.getIndexInfo()) {
+            // The original index is unique but not sparse, so a second document without urlHash would be rejected
+            if (index.isIndexForFields(List.of("urlHash")) && !index.isSparse()) {
+                indexOps.dropIndex(index.getName());
+            }
+        }
+        indexOps.createIndex(new Index().on("urlHash", Sort.Direction.ASC).unique().sparse());
+        indexOps.createIndex(new Index().on("urlDigest", Sort.Direction.ASC).unique().sparse());
+    }
+
+    /**
+     * @return the number of documents rewritten.
+     */
+    long migrate() {
+        Object sizesBefore = indexSizes();
+        long migrated = 0;
+        Object lastId = null;
+        try {
+            List<Document> batch;
+            while (!(batch = nextBatch(lastId)).isEmpty()) {
+                migrated += migrateBatch(batch);
+                lastId = batch.get(batch.size() - 1).get("_id");
+            }
+        } catch (Exception e) {
+            logger.error("urlHash migration stopped after {} documents: {}", migrated, e.getMessage(), e);
+            return migrated;
+        }
+        if (migrated > 0) {
+            logger.info("Migrated {} documents to urlDigest. Index sizes before: {}, after: {}", migrated,
+                    sizesBefore, indexSizes());
+        }
+        return migrated;
+    }
+
+    /**
+     * Walks the collection in _id order, so documents that cannot be migrated
+     * are not read again.
+     */
+    private List<Document> nextBatch(Object lastId) {
+        Criteria criteria = Criteria.where("urlHash").exists(true).and("urlDigest").exists(false);
+        if (lastId != null) {
+            criteria = criteria.and("_id").gt(lastId);
+        }
+        Query query = new Query(criteria).with(Sort.by("_id")).limit(batchSize);
+        query.fields().include("urlHash", "longUrl");
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(UrlMapping.class));
+    }
+
+    private int migrateBatch(List<Document> documents) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class);
+        for (Document document : documents) {
+            Update update = new Update()
+                    .set("urlDigest", new Binary(digestOf(document)))
+                    .unset("urlHash");
+            bulk.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))), update);
+        }
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // A duplicate digest means the URL was shortened twice; leave that document on urlHash
+            return documents.size() - e.getErrors().size();
+        }
+        return documents.size();
+    }
+
+    private byte[] digestOf(Document document) {
+        String urlHash = document.getString("urlHash");
+        if (urlHash != null && urlHash.length() == 64) {
+            try {
+                return HEX.parseHex(urlHash);
+            } catch (IllegalArgumentException e) {
+                // not hex; recompute below
+            }
+        }
+        return UrlShortenService.digest(urlCanonicalizer.canonicalize(document.getString("longUrl")));
+    }
+
+    private Object indexSizes() {
+        Document stats = mongoTemplate.executeCommand(
+                new Document("collStats", mongoTemplate.getCollectionName(UrlMapping.class)));
+        return stats.get("indexSizes");
+    }
+}
@@ -0,0 +1,422 @@
+package com.sumanth.url_shortener.service;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.sumanth.url_shortener.model.UrlMapping;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.XAutoClaimArgs;
+import io.lettuce.core.models.stream.ClaimedMessages;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Write-behind persistence for new mappings, so shortening does not wait for
+ * a MongoDB insert.
+ * <p>
+ * The request thread reserves the URL's digest in Redis, writes the code into
+ * the redirect cache and appends the mapping to the {@value #STREAM_KEY}
+ * stream, all in one pipelined round trip after the reservation. A scheduled
+ * writer on every instance reads the stream as part of one consumer group and
+ * bulk-inserts the mappings. Entries are acknowledged only after the insert,
+ * so a failed batch stays pending and is retried by XAUTOCLAIM after
+ * {@code claim-min-idle}. A duplicate key counts as stored only once the
+ * stored document is checked to be this very mapping; see
+ * {@link #resolveCollision}. Once {@code max-backlog} entries are waiting,
+ * shortening falls back to a synchronous save.
+ * <p>
+ * The codes are announced to {@link ShortCodeFilter} again once stored: a
+ * filter rebuild that read {@code url_mappings} while they were still queued
+ * would otherwise reject them until the next rebuild.
+ */
+@Service
+public class UrlMappingWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlMappingWriteBehind.class);
+
+    static final String STREAM_KEY = "url:mapping:stream";
+    static final String GROUP = "mapping-writers";
+    private static final String PENDING_PREFIX = "url:pending:";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private static final byte[] RAW_STREAM_KEY = STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+    private static final String SHORT_CODE = "shortCode";
+    private static final String LONG_URL = "longUrl";
+    private static final String DIGEST = "digest";
+    private static final String CREATED_AT = "createdAt";
+
+    private final StringRedisTemplate redisTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final UrlCacheService urlCache;
+    private final ShortCodeFilter shortCodeFilter;
+    private final boolean enabled;
+    private final String consumerName;
+    private final int batchSize;
+    private final int maxBatchesPerPoll;
+    private final long maxBacklog;
+    private final Duration claimMinIdle;
+    private final Duration reservationTtl;
+
+    // Stream length as of the last poll; shared by all instances
+    private volatile long backlog;
+    private volatile boolean groupReady;
+
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder lost = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder failedPolls = new LongAdder();
+
+    public UrlMappingWriteBehind(StringRedisTemplate redisTemplate, MongoTemplate mongoTemplate,
+            UrlCacheService urlCache, ShortCodeFilter shortCodeFilter,
+            @Value("${app.shorten.write-behind.enabled:false}") boolean enabled,
+            @Value("${app.instance-name:${HOSTNAME:}}") String consumerName,
+            @Value("${app.shorten.write-behind.batch-size:500}") int batchSize,
+            @Value("${app.shorten.write-behind.max-batches-per-poll:20}") int maxBatchesPerPoll,
+            @Value("${app.shorten.write-behind.max-backlog:100000}") long maxBacklog,
+            @Value("${app.shorten.write-behind.claim-min-idle:30s}") Duration claimMinIdle,
+            @Value("${app.shorten.write-behind.reservation-ttl:1h}") Duration reservationTtl) {
+        this.redisTemplate = redisTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.urlCache = urlCache;
+        this.shortCodeFilter = shortCodeFilter;
+        this.enabled = enabled;
+        this.consumerName = consumerName == null || consumerName.isBlank()
+                ? "writer-" + UUID.randomUUID()
+                : consumerName;
+        this.batchSize = batchSize;
+        this.maxBatchesPerPoll = maxBatchesPerPoll;
+        this.maxBacklog = maxBacklog;
+        this.claimMinIdle = claimMinIdle;
+        this.reservationTtl = reservationTtl;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves the URL for {@code shortCode} until it is in MongoDB, so the
+     * same URL shortened again meanwhile gets the same code.
+     *
+     * @return the code an earlier request reserved, or null if this one won.
+     */
+    public String reserve(byte[] digest, String shortCode) {
+        String key = PENDING_PREFIX + UrlShortenService.legacyHash(digest);
+        try {
+            if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, shortCode, reservationTtl))) {
+                return null;
+            }
+            return redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            // Without Redis the enqueue fails too and the mapping is saved synchronously
+            return null;
+        }
+    }
+
+    /**
+     * Gives up a reservation whose mapping could not be stored, so the URL
+     * does not resolve to a code that does not exist until the reservation
+     * expires. Leaves the key alone if it now holds another code.
+     */
+    public void release(byte[] digest, String shortCode) {
+        String key = PENDING_PREFIX + UrlShortenService.legacyHash(digest);
+        try {
+            if (shortCode.equals(redisTemplate.opsForValue().get(key))) {
+                redisTemplate.delete(key);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to release reservation {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the code reserved for each digest, or null where there is none,
+     *         in the order of {@code digests}. All null if Redis fails; the
+     *         writer then resolves the collision.
+     */
+    public List<String> reservations(List<byte[]> digests) {
+        List<String> keys = new ArrayList<>(digests.size());
+        for (byte[] digest : digests) {
+            keys.add(PENDING_PREFIX + UrlShortenService.legacyHash(digest));
+        }
+        try {
+            List<String> codes = redisTemplate.opsForValue().multiGet(keys);
+            if (codes != null) {
+                return codes;
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read {} reservations: {}", keys.size(), e.getMessage());
+        }
+        return Collections.nCopies(digests.size(), null);
+    }
+
+    /**
+     * Makes the code redirect right away and queues the mapping for insert.
+     *
+     * @return false if the backlog is full or Redis failed; the caller must
+     *         save it itself.
+     */
+    public boolean enqueue(UrlMapping mapping) {
+        if (backlog >= maxBacklog) {
+            overflowed.increment();
+            return false;
+        }
+
+        Map<byte[], byte[]> fields = new LinkedHashMap<>(8);
+        fields.put(raw(SHORT_CODE), raw(mapping.getShortCode()));
+        fields.put(raw(LONG_URL), raw(mapping.getLongUrl()));
+        fields.put(raw(DIGEST), raw(UrlShortenService.legacyHash(mapping.getUrlDigest())));
+        fields.put(raw(CREATED_AT), raw(String.valueOf(mapping.getCreatedAt().toEpochMilli())));
+        MapRecord<byte[], byte[], byte[]> record = StreamRecords.newRecord()
+                .in(RAW_STREAM_KEY)
+                .ofMap(fields);
+        Expiration cacheTtl = Expiration.from(urlCache.redisTtl());
+
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.stringCommands().set(raw(mapping.getShortCode()), raw(mapping.getLongUrl()), cacheTtl,
+                        RedisStringCommands.SetOption.upsert());
+                connection.streamCommands().xAdd(record);
+                return null;
+            });
+        } catch (Exception e) {
+            logger.warn("Failed to queue url mapping {}: {}", mapping.getShortCode(), e.getMessage());
+            return false;
+        }
+        urlCache.putLocal(mapping.getShortCode(), mapping.getLongUrl());
+        queued.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${app.shorten.write-behind.poll-interval-ms:200}")
+    public void persistPending() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ensureGroup();
+
+            // 1. Retry batches that failed here or were left behind by a dead instance
+            claimStaleEntries();
+
+            // 2. New entries, in bounded batches
+            Consumer consumer = Consumer.from(GROUP, consumerName);
+            StreamReadOptions options = StreamReadOptions.empty().count(batchSize);
+            for (int batch = 0; batch < maxBatchesPerPoll; batch++) {
+                List<MapRecord<String, Object, Object>> messages = RedisStreams.readNew(redisTemplate, consumer,
+                        options, STREAM_KEY);
+                if (messages == null || messages.isEmpty()) {
+                    break;
+                }
+
+                List<UrlMapping> mappings = new ArrayList<>(messages.size());
+                List<RecordId> messageIds = new ArrayList<>(messages.size());
+                for (MapRecord<String, Object, Object> message : messages) {
+                    Map<Object, Object> values = message.getValue();
+                    mappings.add(toMapping(name -> (String) values.get(name)));
+                    messageIds.add(message.getId());
+                }
+                persistAndAcknowledge(mappings, messageIds);
+
+                if (messages.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            if (RedisStreams.isRedisError(e, "NOGROUP")) {
+                groupReady = false;
+            }
+            failedPolls.increment();
+            logger.error("Error persisting queued url mappings: {}", e.getMessage(), e);
+        } finally {
+            updateBacklog();
+        }
+    }
+
+    private void claimStaleEntries() {
+        String start = RedisStreams.CLAIM_START;
+        for (int batch = 0; batch < maxBatchesPerPoll; batch++) {
+            XAutoClaimArgs<byte[]> args = XAutoClaimArgs.Builder
+                    .xautoclaim(io.lettuce.core.Consumer.from(raw(GROUP), raw(consumerName)), claimMinIdle, start)
+                    .count(batchSize);
+
+            ClaimedMessages<byte[], byte[]> claimed = redisTemplate.execute(
+                    (RedisCallback<ClaimedMessages<byte[], byte[]>>) connection ->
+                            RedisStreams.autoClaim(connection, RAW_STREAM_KEY, args));
+            if (claimed == null) {
+                return;
+            }
+
+            List<UrlMapping> mappings = new ArrayList<>(claimed.getMessages().size());
+            List<RecordId> messageIds = new ArrayList<>(claimed.getMessages().size());
+            for (StreamMessage<byte[], byte[]> message : claimed.getMessages()) {
+                mappings.add(toMapping(name -> RedisStreams.fieldOf(message, raw(name))));
+                messageIds.add(RecordId.of(message.getId()));
+            }
+            if (!messageIds.isEmpty()) {
+                persistAndAcknowledge(mappings, messageIds);
+            }
+
+            start = claimed.getId();
+            if (RedisStreams.CLAIM_START.equals(start)) {
+                return;
+            }
+        }
+    }
+
+    void persistAndAcknowledge(List<UrlMapping> mappings, List<RecordId> messageIds) {
+        Set<Integer> collided = Set.of();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)
+                    .insert(mappings)
+                    .execute();
+        } catch (BulkOperationException e) {
+            collided = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    // Leave the whole batch pending; the inserted ones are duplicates on retry
+                    throw e;
+                }
+                collided.add(error.getIndex());
+            }
+        }
+        persisted.add(mappings.size() - collided.size());
+        List<String> stored = new ArrayList<>(mappings.size());
+        for (int i = 0; i < mappings.size(); i++) {
+            UrlMapping mapping = mappings.get(i);
+            if (!collided.contains(i) || resolveCollision(mapping)) {
+                stored.add(ShortDomains.key(mapping.getDomain(), mapping.getShortCode()));
+            }
+        }
+        shortCodeFilter.add(stored);
+
+        RecordId[] ids = messageIds.toArray(new RecordId[0]);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            connection.streamCommands().xAck(RAW_STREAM_KEY, GROUP, ids);
+            connection.streamCommands().xDel(RAW_STREAM_KEY, ids);
+            return null;
+        });
+    }
+
+    /**
+     * A duplicate key is this mapping stored by an earlier attempt, or a
+     * different document: the same URL stored under another code by a bulk
+     * shorten, or the code taken by an alias. In the first case there is
+     * nothing to do. If only the digest collided the mapping is stored
+     * without one, so the code the client got keeps working. If the code
+     * itself belongs to another URL the mapping is lost; its cache entry is
+     * dropped so the code redirects to the stored URL, not to this one.
+     *
+     * @return false if the mapping was lost.
+     */
+    private boolean resolveCollision(UrlMapping mapping) {
+        String storedUrl = storedUrl(mapping.getShortCode());
+        if (storedUrl == null) {
+            mapping.setUrlDigest(null);
+            try {
+                mongoTemplate.insert(mapping);
+                persisted.increment();
+                return true;
+            } catch (DuplicateKeyException e) {
+                // The code was taken in the meantime
+                storedUrl = storedUrl(mapping.getShortCode());
+            }
+        }
+        if (mapping.getLongUrl().equals(storedUrl)) {
+            duplicates.increment();
+            return true;
+        }
+        lost.increment();
+        logger.error("Queued mapping {} -> {} lost: the code is taken by {}", mapping.getShortCode(),
+                mapping.getLongUrl(), storedUrl);
+        urlCache.evict(mapping.getShortCode());
+        return false;
+    }
+
+    private String storedUrl(String shortCode) {
+        Query query = new Query(ShortDomains.criteria(shortCode));
+        query.fields().include("longUrl").exclude("_id");
+        UrlMapping stored = mongoTemplate.findOne(query, UrlMapping.class);
+        return stored != null ? stored.getLongUrl() : null;
+    }
+
+    private static UrlMapping toMapping(Function<String, String> field) {
+        Instant createdAt = Instant.ofEpochMilli(Long.parseLong(field.apply(CREATED_AT)));
+        return new UrlMapping(null, field.apply(LONG_URL), null, HexFormat.of().parseHex(field.apply(DIGEST)),
+                field.apply(SHORT_CODE), createdAt, createdAt, 0, null, false, null, null, null);
+    }
+
+    private void updateBacklog() {
+        try {
+            Long length = redisTemplate.opsForStream().size(STREAM_KEY);
+            backlog = length == null ? 0 : length;
+        } catch (Exception e) {
+            // Keep the last known value
+        }
+    }
+
+    private void ensureGroup() {
+        if (groupReady) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection -> connection.streamCommands()
+                    .xGroupCreate(RAW_STREAM_KEY, GROUP, ReadOffset.from("0"), true));
+        } catch (Exception e) {
+            if (!RedisStreams.isRedisError(e, "BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupReady = true;
+    }
+
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("backlog", backlog);
+        stats.put("queued", queued.sum());
+        stats.put("persisted", persisted.sum());
+        stats.put("duplicates", duplicates.sum());
+        stats.put("lost", lost.sum());
+        stats.put("overflowed", overflowed.sum());
+        stats.put("failedPolls", failedPolls.sum());
+        return stats;
+    }
+}
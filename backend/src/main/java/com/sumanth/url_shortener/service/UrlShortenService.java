@@ -4,137 +4,277 @@ import com.sumanth.url_shortener.model.UrlMapping;
 import com.sumanth.url_shortener.repository.UrlMappingRepository;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
+import com.sumanth.url_shortener.exception.AliasUnavailableException;
 import com.sumanth.url_shortener.exception.InvalidUrlException;
+import com.sumanth.url_shortener.exception.UrlExpiredException;
 import com.sumanth.url_shortener.exception.UrlNotFoundException;
 import com.sumanth.url_shortener.util.Base62Encoder;
-import org.springframework.data.redis.core.StringRedisTemplate;
-
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.time.Duration;
+import com.sumanth.url_shortener.util.UrlCanonicalizer;
 
 @Service
 public class UrlShortenService {
 
+    private static final HexFormat HEX = HexFormat.of();
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not found", e);
+        }
+    });
+
     private final UrlMappingRepository repo;
     private final CounterService counterService;
-    private final StringRedisTemplate redisTemplate;
-    private final RedisStreamPublisher publisher;
+    private final UrlCacheService urlCache;
+    private final ClickRecorder clickRecorder;
+    private final ShortCodeFilter shortCodeFilter;
     private final com.sumanth.url_shortener.util.SecureCodeGenerator secureCodeGenerator;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final UrlMappingWriteBehind writeBehind;
+    private final AliasReservations aliasReservations;
+    private final ShortDomains shortDomains;
+    private final LinkLimits linkLimits;
+    private final boolean legacyHashLookup;
+
+    private final Timer redirectFound;
+    private final Timer redirectNotFound;
+    private final Timer shortenExisting;
+    private final Timer shortenCreated;
+    private final Timer shortenQueued;
+    private final Timer dedupLookup;
+    private final Timer mappingSave;
+    private final Timer shortCodeLookup;
+    private final Timer nextSequence;
 
     public UrlShortenService(UrlMappingRepository repo, CounterService counterService,
-            StringRedisTemplate redisTemplate, RedisStreamPublisher publisher,
-            com.sumanth.url_shortener.util.SecureCodeGenerator secureCodeGenerator) {
+            UrlCacheService urlCache, ClickRecorder clickRecorder, ShortCodeFilter shortCodeFilter,
+            com.sumanth.url_shortener.util.SecureCodeGenerator secureCodeGenerator,
+            UrlCanonicalizer urlCanonicalizer, UrlMappingWriteBehind writeBehind,
+            AliasReservations aliasReservations, ShortDomains shortDomains, LinkLimits linkLimits,
+            MeterRegistry meterRegistry,
+            @Value("${app.url-hash.legacy-lookup:true}") boolean legacyHashLookup) {
         this.repo = repo;
         this.counterService = counterService;
-        this.redisTemplate = redisTemplate;
-        this.publisher = publisher;
+        this.urlCache = urlCache;
+        this.clickRecorder = clickRecorder;
+        this.shortCodeFilter = shortCodeFilter;
         this.secureCodeGenerator = secureCodeGenerator;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.writeBehind = writeBehind;
+        this.aliasReservations = aliasReservations;
+        this.shortDomains = shortDomains;
+        this.linkLimits = linkLimits;
+        this.legacyHashLookup = legacyHashLookup;
+
+        this.redirectFound = timer(meterRegistry, "url.redirect", "result", "found");
+        this.redirectNotFound = timer(meterRegistry, "url.redirect", "result", "not_found");
+        this.shortenExisting = timer(meterRegistry, "url.shorten", "result", "existing");
+        this.shortenCreated = timer(meterRegistry, "url.shorten", "result", "created");
+        this.shortenQueued = timer(meterRegistry, "url.shorten", "result", "queued");
+        this.dedupLookup = timer(meterRegistry, "url.db", "operation", "dedup_lookup");
+        this.mappingSave = timer(meterRegistry, "url.db", "operation", "save");
+        this.shortCodeLookup = timer(meterRegistry, "url.db", "operation", "find_by_short_code");
+        this.nextSequence = Timer.builder("url.counter.next")
+                .description("Time to hand out the next short code sequence")
+                .register(meterRegistry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String name, String tag, String value) {
+        return Timer.builder(name).tag(tag, value).register(registry);
     }
 
     public UrlMapping shortenUrl(String longUrl) {
+        return shortenUrl(longUrl, null, null, null, null, null);
+    }
+
+    /**
+     * @param alias     the code to use instead of a generated one, or null.
+     * @param domain    one of {@code app.domains.branded}, or null for the
+     *                  default domain.
+     * @param expiresAt when the link stops redirecting, or null.
+     * @param maxClicks redirects allowed in total, or null for no limit.
+     * @param ownerId   the signed-in user's id, or null for an anonymous link.
+     * @throws AliasUnavailableException if the domain already has that code.
+     */
+    public UrlMapping shortenUrl(String longUrl, String alias, String domain, Instant expiresAt, Long maxClicks,
+            String ownerId) {
         if (longUrl == null || longUrl.trim().isEmpty()) {
             throw new InvalidUrlException("URL cannot be empty");
         }
+        long start = System.nanoTime();
 
-        String normalisedLongUrl = normalizeAndValidateUrl(longUrl);
-        String hash = hash(normalisedLongUrl);
-        Optional<UrlMapping> existing = repo.findByUrlHash(hash);
+        String normalisedLongUrl = urlCanonicalizer.canonicalize(longUrl);
+        String shortDomain = shortDomains.require(domain);
+        linkLimits.validate(expiresAt, maxClicks);
+        if ((alias != null && !alias.isEmpty()) || shortDomain != null || expiresAt != null || maxClicks != null
+                || ownerId != null) {
+            UrlMapping mapping = new UrlMapping(null, longUrl, null, null, null, Instant.now(), Instant.now(), 0,
+                    shortDomain, false, expiresAt, maxClicks, ownerId);
+            return shortenCustom(mapping, alias != null && !alias.isEmpty() ? alias : null, start);
+        }
+        byte[] digest = digest(normalisedLongUrl);
+        Optional<UrlMapping> existing = dedupLookup.record(() -> legacyHashLookup
+                ? repo.findFirstByUrlDigestOrUrlHash(digest, legacyHash(digest))
+                : repo.findByUrlDigest(digest));
 
         if (existing.isPresent()) {
+            shortenExisting.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             return existing.get();
         } else {
-            long seq = counterService.getNextSequence();
-            // String shortCode = Base62Encoder.encode(seq);
-            String shortCode = secureCodeGenerator.generate(seq);
-            UrlMapping mapping = new UrlMapping(null, longUrl, hash, shortCode, Instant.now(), Instant.now(), 0);
-
-            return repo.save(mapping);
-        }
-
-    }
+            String shortCode = nextShortCode(null);
+            UrlMapping mapping = new UrlMapping(null, longUrl, null, digest, shortCode, Instant.now(), Instant.now(), 0,
+                    null, false, null, null, null);
 
-    private String normalizeAndValidateUrl(String urlString) {
-        try {
-            // Basic format check
-            String lowerCaseUrl = urlString.toLowerCase();
-            if (!lowerCaseUrl.startsWith("http://") && !lowerCaseUrl.startsWith("https://")) {
-                throw new InvalidUrlException("URL must start with http:// or https://");
+            if (writeBehind.isEnabled()) {
+                String reserved = writeBehind.reserve(digest, shortCode);
+                if (reserved != null) {
+                    // Same URL shortened a moment ago and not persisted yet
+                    mapping.setShortCode(reserved);
+                    shortenExisting.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return mapping;
+                }
+                if (writeBehind.enqueue(mapping)) {
+                    shortCodeFilter.add(List.of(shortCode));
+                    shortenQueued.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    return mapping;
+                }
+                // Backlog is full: persist this one synchronously
             }
 
-            URI uri = new URI(urlString);
-
-            // Validate host
-            if (uri.getHost() == null || uri.getHost().isEmpty()) {
-                throw new InvalidUrlException("Invalid URL: Host cannot be empty");
+            UrlMapping saved;
+            try {
+                saved = mappingSave.record(() -> repo.save(mapping));
+            } catch (RuntimeException e) {
+                if (writeBehind.isEnabled()) {
+                    // Otherwise the URL resolves to this unsaved code until the reservation expires
+                    writeBehind.release(digest, shortCode);
+                }
+                throw e;
             }
+            shortCodeFilter.add(List.of(shortCode));
+            shortenCreated.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return saved;
+        }
 
-            // Normalize: Scheme and Host to lowercase, remove default ports
-            String scheme = uri.getScheme().toLowerCase();
-            String host = uri.getHost().toLowerCase();
-            int port = uri.getPort();
+    }
 
-            // Remove default ports
-            if ((scheme.equals("http") && port == 80) || (scheme.equals("https") && port == 443)) {
-                port = -1;
+    /**
+     * Aliases, links on a branded domain, links with limits and links with an
+     * owner are never deduplicated: the same URL may have any number of them,
+     * so they are stored without a digest.
+     */
+    private UrlMapping shortenCustom(UrlMapping mapping, String alias, long start) {
+        String domain = mapping.getDomain();
+        String shortCode;
+        if (alias != null) {
+            aliasReservations.validate(alias);
+            if (aliasReservations.isAlias(domain, alias)) {
+                throw new AliasUnavailableException(alias);
             }
+            shortCode = alias;
+        } else {
+            shortCode = nextShortCode(domain);
+        }
 
-            // Reconstruct URI with normalized components
-            URI normalizedUri = new URI(scheme, uri.getUserInfo(), host, port, uri.getPath(), uri.getQuery(),
-                    uri.getFragment());
+        mapping.setShortCode(shortCode);
+        mapping.setCustom(alias != null);
+        UrlMapping saved;
+        try {
+            saved = mappingSave.record(() -> repo.save(mapping));
+        } catch (DuplicateKeyException e) {
+            // The unique {shortCode, domain} index settles concurrent claims
+            throw new AliasUnavailableException(shortCode);
+        }
+        shortCodeFilter.add(List.of(ShortDomains.key(domain, shortCode)));
+        if (alias != null) {
+            aliasReservations.add(domain, alias);
+        }
+        shortenCreated.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return saved;
+    }
 
-            // Resolve dot segments (./ and ../)
-            return normalizedUri.normalize().toString();
+    private String nextShortCode(String domain) {
+        String shortCode;
+        do {
+            long seq = nextSequence.record(counterService::getNextSequence);
+            // String shortCode = Base62Encoder.encode(seq);
+            shortCode = secureCodeGenerator.generate(seq);
+            // Someone chose this code as an alias before the sequence reached it
+        } while (aliasReservations.isAlias(domain, shortCode));
+        return shortCode;
+    }
 
-        } catch (URISyntaxException e) {
-            throw new InvalidUrlException("Invalid URL format: " + e.getMessage());
-        }
+    /**
+     * SHA-256 of the normalised URL with this thread's digest; no hex round trip.
+     */
+    static byte[] digest(String normalisedLongUrl) {
+        return SHA_256.get().digest(normalisedLongUrl.getBytes(StandardCharsets.UTF_8));
     }
 
-    private String hash(String normalisedLongUrl) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(normalisedLongUrl.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1)
-                    hexString.append('0');
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not found", e);
-        }
+    /**
+     * The hex form stored in {@code urlHash} by documents that predate {@code urlDigest}.
+     */
+    static String legacyHash(byte[] digest) {
+        return HEX.formatHex(digest);
+    }
+
+    /**
+     * @return the mapping's digest, decoded from the legacy hex form if needed.
+     */
+    static byte[] digestOf(UrlMapping mapping) {
+        return mapping.getUrlDigest() != null ? mapping.getUrlDigest() : HEX.parseHex(mapping.getUrlHash());
     }
 
     public UrlMapping expandUrl(String shortCode, boolean incrementClickCount) {
+        return expandUrl(null, shortCode, incrementClickCount);
+    }
+
+    /**
+     * @param domain the branded domain the request came in on, or null.
+     */
+    public UrlMapping expandUrl(String domain, String shortCode, boolean incrementClickCount) {
         if (!incrementClickCount) {
             // For stats, bypass cache to get the latest click count
-            return repo.findByShortCode(shortCode)
+            return repo.findByShortCodeAndDomain(shortCode, domain)
                     .orElseThrow(() -> new UrlNotFoundException(shortCode));
         }
 
-        // 1. Check Redis
-        String longUrl = redisTemplate.opsForValue().get(shortCode);
-
-        if (longUrl == null) {
-            // 2. Cache Miss: Fetch from DB
-            UrlMapping mapping = repo.findByShortCode(shortCode)
-                    .orElseThrow(() -> new UrlNotFoundException(shortCode));
-            longUrl = mapping.getLongUrl();
+        long start = System.nanoTime();
+        String key = ShortDomains.key(domain, shortCode);
+        String longUrl;
+        try {
+            // 0. Codes that were never issued stop here, without any I/O
+            if (!shortCodeFilter.mightExist(key)) {
+                throw new UrlNotFoundException(shortCode);
+            }
 
-            // Populate Cache (e.g., set TTL to 24 hours)
-            redisTemplate.opsForValue().set(shortCode, longUrl, Duration.ofHours(24));
+            // 1. Check local cache, then Redis
+            // 2. Cache Miss: one caller per code fetches from DB and populates both tiers
+            String cached = urlCache.getOrLoad(key, k -> loadLongUrl(domain, shortCode, k));
+            // 3. Links with an expiry or click cap carry both in the cached value
+            longUrl = CachedUrl.isPlain(cached) ? cached : linkLimits.admit(key, shortCode, CachedUrl.decode(cached));
+        } catch (UrlNotFoundException | UrlExpiredException e) {
+            redirectNotFound.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
         }
 
-        // 3. Publish Click Event to Redis Stream (Async)
-        publisher.publishClickEvent(shortCode);
+        // 4. Record the click (async, never waits on Redis)
+        clickRecorder.recordClick(key);
+        redirectFound.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         // Required for redirection: Return object with longUrl.
         // Note: The returned object might not have the latest clickCount or other
@@ -144,4 +284,19 @@ public class UrlShortenService {
         return result;
     }
 
+    private String loadLongUrl(String domain, String shortCode, String key) {
+        Optional<UrlMapping> mapping = shortCodeLookup.record(() -> repo.findByShortCodeAndDomain(shortCode, domain));
+        if (mapping.isEmpty()) {
+            shortCodeFilter.recordMissing(key);
+            throw new UrlNotFoundException(shortCode);
+        }
+        Instant expiresAt = mapping.get().getExpiresAt();
+        if (expiresAt != null && !expiresAt.isAfter(Instant.now())) {
+            // Not purged by the TTL index yet
+            throw new UrlExpiredException(shortCode);
+        }
+        linkLimits.seed(key, mapping.get());
+        return CachedUrl.encode(mapping.get());
+    }
+
 }
@@ -0,0 +1,146 @@
+package com.sumanth.url_shortener.service;
+
+import com.sumanth.url_shortener.controller.dto.LinkDto;
+import com.sumanth.url_shortener.controller.dto.LinkPageDto;
+import com.sumanth.url_shortener.exception.InvalidCursorException;
+import com.sumanth.url_shortener.model.UrlMapping;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the links a user owns, newest first.
+ * <p>
+ * Pages are read with keyset pagination on {@code (createdAt, _id)}: the
+ * cursor holds the last link of the previous page and the next query starts
+ * right after it, so page 5,000 costs the same index seek as page 1, where
+ * skip/limit would walk every link before it. The {@code ownerId_createdAt}
+ * index covers the filter and the sort; {@code _id} breaks ties between links
+ * created in the same millisecond. It is partial, so anonymous links, the
+ * bulk of the collection, add nothing to it.
+ * <p>
+ * Only the listed fields are read, and click counts come from
+ * {@link ClickStatsService} so they include clicks not persisted yet.
+ */
+@Service
+public class UserLinksService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLinksService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ClickStatsService clickStatsService;
+    private final int pageSize;
+    private final int maxPageSize;
+
+    public UserLinksService(MongoTemplate mongoTemplate, ClickStatsService clickStatsService,
+            @Value("${app.links.page-size:20}") int pageSize,
+            @Value("${app.links.max-page-size:100}") int maxPageSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.clickStatsService = clickStatsService;
+        this.pageSize = pageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        try {
+            mongoTemplate.indexOps(UrlMapping.class).createIndex(new Index()
+                    .on("ownerId", Sort.Direction.ASC)
+                    .on("createdAt", Sort.Direction.DESC)
+                    .on("_id", Sort.Direction.DESC)
+                    .partial(PartialIndexFilter.of(Criteria.where("ownerId").exists(true)))
+                    .named("ownerId_createdAt"));
+        } catch (Exception e) {
+            logger.error("Failed to create the ownerId_createdAt index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param cursor {@code nextCursor} of the previous page, or null for the
+     *               first page.
+     * @param limit  links per page, or null for {@code app.links.page-size};
+     *               capped at {@code app.links.max-page-size}.
+     * @throws InvalidCursorException if the cursor was not issued by this
+     *                                endpoint.
+     */
+    public LinkPageDto page(String ownerId, String cursor, Integer limit) {
+        int size = Math.max(1, Math.min(limit != null ? limit : pageSize, maxPageSize));
+
+        Criteria criteria = Criteria.where("ownerId").is(ownerId);
+        if (cursor != null && !cursor.isEmpty()) {
+            Position after = decode(cursor);
+            criteria = criteria.orOperator(
+                    Criteria.where("createdAt").lt(after.createdAt()),
+                    Criteria.where("createdAt").is(after.createdAt()).and("_id").lt(new ObjectId(after.id())));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                // One extra row tells whether there is a next page
+                .limit(size + 1);
+        query.fields().include("shortCode", "domain", "longUrl", "createdAt", "expiresAt", "maxClicks",
+                "clickCount", "custom");
+
+        List<UrlMapping> mappings = mongoTemplate.find(query, UrlMapping.class);
+        boolean more = mappings.size() > size;
+        if (more) {
+            mappings = mappings.subList(0, size);
+        }
+
+        Map<String, Long> persistedClickCounts = new HashMap<>();
+        for (UrlMapping mapping : mappings) {
+            persistedClickCounts.put(ShortDomains.key(mapping.getDomain(), mapping.getShortCode()),
+                    mapping.getClickCount());
+        }
+        Map<String, Long> clickCounts = clickStatsService.getClickCounts(persistedClickCounts);
+
+        List<LinkDto> links = new ArrayList<>(mappings.size());
+        for (UrlMapping mapping : mappings) {
+            String key = ShortDomains.key(mapping.getDomain(), mapping.getShortCode());
+            links.add(new LinkDto(mapping.getShortCode(), mapping.getDomain(), mapping.getLongUrl(),
+                    mapping.getCreatedAt(), mapping.getExpiresAt(), mapping.getMaxClicks(),
+                    clickCounts.get(key), mapping.isCustom()));
+        }
+        String nextCursor = more ? encode(mappings.get(mappings.size() - 1)) : null;
+        return new LinkPageDto(links, nextCursor);
+    }
+
+    record Position(Instant createdAt, String id) {
+    }
+
+    static String encode(UrlMapping last) {
+        String position = last.getCreatedAt().toEpochMilli() + ":" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Position decode(String cursor) {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int colon = position.indexOf(':');
+            String id = position.substring(colon + 1);
+            if (colon < 1 || !ObjectId.isValid(id)) {
+                throw new InvalidCursorException("Invalid cursor");
+            }
+            return new Position(Instant.ofEpochMilli(Long.parseLong(position, 0, colon, 10)), id);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
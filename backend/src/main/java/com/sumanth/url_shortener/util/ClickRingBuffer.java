@@ -0,0 +1,111 @@
+package com.sumanth.url_shortener.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free multi-producer, single-consumer ring of (shortCode, timestamp) pairs.
+ * <p>
+ * Slots are preallocated, so offering an event allocates nothing. Each slot has
+ * a sequence number: a producer claims a position with one CAS on the tail,
+ * fills the slot and then publishes it by advancing the slot's sequence. The
+ * consumer only reads slots whose sequence says they are published.
+ */
+public class ClickRingBuffer {
+
+    @FunctionalInterface
+    public interface ClickSink {
+        void accept(String shortCode, long timestampMillis);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final String[] shortCodes;
+    private final long[] timestamps;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    // Only the consumer thread moves the head
+    private volatile long head;
+
+    /**
+     * @param capacity rounded up to the next power of two.
+     */
+    public ClickRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30");
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.shortCodes = new String[this.capacity];
+        this.timestamps = new long[this.capacity];
+        this.sequences = new AtomicLongArray(this.capacity);
+        for (int i = 0; i < this.capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * @return false if the ring is full.
+     */
+    public boolean offer(String shortCode, long timestampMillis) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    shortCodes[index] = shortCode;
+                    timestamps[index] = timestampMillis;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // The consumer has not freed this slot from the previous lap yet
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hands up to {@code max} published events to the sink, oldest first. Must
+     * only be called from a single consumer thread.
+     *
+     * @return the number of events drained.
+     */
+    public int drain(ClickSink sink, int max) {
+        long position = head;
+        int drained = 0;
+        while (drained < max) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            String shortCode = shortCodes[index];
+            long timestamp = timestamps[index];
+            shortCodes[index] = null;
+            // Free the slot for the producer one lap ahead
+            sequences.set(index, position + capacity);
+            position++;
+            drained++;
+            sink.accept(shortCode, timestamp);
+        }
+        head = position;
+        return drained;
+    }
+
+    /**
+     * @return an estimate of the events waiting to be drained.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(capacity, tail.get() - head));
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
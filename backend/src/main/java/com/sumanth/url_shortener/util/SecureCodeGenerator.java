@@ -1,72 +1,260 @@
 package com.sumanth.url_shortener.util;
 
 import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.SecretKeySpec;
-import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Turns a sequence number into a 7 character code using HMAC-SHA256.
+ * <p>
+ * Each thread keeps its own initialised {@link Mac} and scratch buffers, so a
+ * call allocates nothing but the returned String. Virtual threads are created
+ * per request, so a thread-local would build a new Mac on almost every call;
+ * they borrow a workspace from a shared pool instead.
+ */
 @Component
 public class SecureCodeGenerator {
 
-    private final String secretKey;
-    private final String alphabet;
-    private final BigInteger base;
+    /**
+     * COMPAT reproduces the original output: the first 7 digits of the whole
+     * 256-bit digest written in the alphabet's base. FAST reads only the first 8
+     * bytes of the digest and always returns exactly 7 characters.
+     * <p>
+     * FAST codes are drawn from a different distribution than COMPAT codes, so an
+     * existing deployment should only switch if it can tolerate the odd unique
+     * index collision with a code issued before the switch.
+     */
+    public enum Mode {
+        COMPAT, FAST
+    }
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int CODE_LENGTH = 7;
+    private static final int DIGEST_LENGTH = 32;
+    private static final int LIMBS = DIGEST_LENGTH / Integer.BYTES;
+
+    private final SecretKeySpec key;
+    private final char[] alphabet;
+    private final int base;
+    private final Mode mode;
+
+    // base^7, the number of distinct 7 character codes
+    private final long codeSpace;
+    // Largest base^k the digest can be divided by while it is still too big for a long
+    private final long chunkDivisor;
+
+    private final ThreadLocal<Workspace> workspace;
+    private final Queue<Workspace> virtualThreadWorkspaces = new ConcurrentLinkedQueue<>();
+    private final Timer generateTimer;
+
+    public SecureCodeGenerator(String secretKey, String alphabet) {
+        this(secretKey, alphabet, Mode.COMPAT);
+    }
 
+    public SecureCodeGenerator(String secretKey, String alphabet, Mode mode) {
+        this(secretKey, alphabet, mode, Metrics.globalRegistry);
+    }
+
+    @Autowired
     public SecureCodeGenerator(
             @Value("${app.secure-code.secret-key}") String secretKey,
-            @Value("${app.secure-code.alphabet}") String alphabet) {
-        this.secretKey = secretKey;
-        this.alphabet = alphabet;
-        this.base = BigInteger.valueOf(alphabet.length());
+            @Value("${app.secure-code.alphabet}") String alphabet,
+            @Value("${app.secure-code.mode:compat}") Mode mode,
+            MeterRegistry meterRegistry) {
+        if (alphabet.length() < 2 || alphabet.length() > 64) {
+            throw new IllegalArgumentException("Alphabet must have between 2 and 64 characters");
+        }
+        this.key = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.alphabet = alphabet.toCharArray();
+        this.base = alphabet.length();
+        this.mode = mode;
+        this.codeSpace = pow(base, CODE_LENGTH);
+        this.chunkDivisor = chunkDivisor(base);
+        this.workspace = ThreadLocal.withInitial(this::newWorkspace);
+        this.generateTimer = Timer.builder("url.code.generate")
+                .tag("mode", mode.name().toLowerCase())
+                .register(meterRegistry);
     }
 
     public String generate(long seq) {
+        long start = System.nanoTime();
         try {
-            // 1. Get HMAC-SHA256 of the sequence
-            Mac sha256_HMAC = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secret_key = new SecretKeySpec(secretKey.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            sha256_HMAC.init(secret_key);
-
-            byte[] hashBytes = sha256_HMAC.doFinal(String.valueOf(seq).getBytes(StandardCharsets.UTF_8));
-
-            // 2. Convert to BigInteger (positive)
-            BigInteger bigInt = new BigInteger(1, hashBytes);
-
-            // 3. Base62 Encode
-            StringBuilder sb = new StringBuilder();
-            while (bigInt.compareTo(BigInteger.ZERO) > 0) {
-                BigInteger[] divRem = bigInt.divideAndRemainder(base);
-                sb.append(alphabet.charAt(divRem[1].intValue()));
-                bigInt = divRem[0];
-            }
+            return generateWithWorkspace(seq);
+        } finally {
+            generateTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 
-            // If the hash results in 0 (extremely unlikely), handle it
-            // However, loop condition (bigInt > 0) handles initialization
-            if (sb.length() == 0) {
-                return String.valueOf(alphabet.charAt(0));
-            }
+    private String generateWithWorkspace(long seq) {
+        if (!Thread.currentThread().isVirtual()) {
+            return generate(seq, workspace.get());
+        }
+        Workspace ws = virtualThreadWorkspaces.poll();
+        if (ws == null) {
+            ws = newWorkspace();
+        }
+        try {
+            return generate(seq, ws);
+        } finally {
+            virtualThreadWorkspaces.offer(ws);
+        }
+    }
+
+    private String generate(long seq, Workspace ws) {
+        try {
+            // 1. HMAC-SHA256 of the decimal form of the sequence
+            int start = writeDecimal(seq, ws.seqBytes);
+            ws.mac.update(ws.seqBytes, start, ws.seqBytes.length - start);
+            ws.mac.doFinal(ws.digest, 0);
+        } catch (ShortBufferException e) {
+            throw new RuntimeException("Error generating secure code", e);
+        }
+
+        // 2. Encode in the alphabet's base
+        return mode == Mode.FAST ? encodeFast(ws) : encodeCompat(ws);
+    }
+
+    private String encodeFast(Workspace ws) {
+        long value = Long.remainderUnsigned(readLong(ws.digest, 0), codeSpace);
+        char[] chars = ws.chars;
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            chars[i] = alphabet[(int) (value % base)];
+            value /= base;
+        }
+        return new String(chars, 0, CODE_LENGTH);
+    }
 
-            // Reverse to get correct Base62 representation (standard practice, though for
-            // hash it matters less)
-            String base62Hash = sb.reverse().toString();
-
-            // 4. Take first 7 characters
-            if (base62Hash.length() > 7) {
-                return base62Hash.substring(0, 7);
-            } else {
-                // If by some extreme chance the hash encoded is shorter than 7 chars, return it
-                // as is or pad?
-                // SHA-256 is 256 bits, 256 / log2(62) ≈ 43 characters. It will always be > 7.
-                return base62Hash;
+    /**
+     * Keeps the leading 7 digits of the 256-bit digest, which is
+     * floor(digest / base^(digits - 7)). Dividing in steps gives the same
+     * result as one big division, so the digest is divided by base^k while it
+     * is wider than a long, and by base once it fits.
+     */
+    private String encodeCompat(Workspace ws) {
+        int[] limbs = ws.limbs;
+        byte[] digest = ws.digest;
+        for (int i = 0; i < LIMBS; i++) {
+            limbs[i] = readInt(digest, i * Integer.BYTES);
+        }
+
+        int top = 0;
+        while (top < LIMBS - 2 || (top == LIMBS - 2 && limbs[top] < 0)) {
+            if (limbs[top] == 0) {
+                top++;
+                continue;
             }
+            long remainder = 0;
+            for (int i = top; i < LIMBS; i++) {
+                long current = (remainder << 32) | (limbs[i] & 0xffffffffL);
+                limbs[i] = (int) (current / chunkDivisor);
+                remainder = current % chunkDivisor;
+            }
+        }
+
+        long value = ((long) limbs[LIMBS - 2] << 32) | (limbs[LIMBS - 1] & 0xffffffffL);
+        while (value >= codeSpace) {
+            value /= base;
+        }
+
+        if (value == 0) {
+            return String.valueOf(alphabet[0]);
+        }
 
+        char[] chars = ws.chars;
+        int pos = CODE_LENGTH;
+        while (value > 0) {
+            chars[--pos] = alphabet[(int) (value % base)];
+            value /= base;
+        }
+        return new String(chars, pos, CODE_LENGTH - pos);
+    }
+
+    /**
+     * Writes the same bytes as {@code String.valueOf(seq).getBytes(UTF_8)} into
+     * the end of the buffer.
+     *
+     * @return the index of the first byte written.
+     */
+    private static int writeDecimal(long seq, byte[] buffer) {
+        int pos = buffer.length;
+        // Work with negative values so Long.MIN_VALUE needs no special case
+        long value = seq < 0 ? seq : -seq;
+        do {
+            buffer[--pos] = (byte) ('0' - (value % 10));
+            value /= 10;
+        } while (value != 0);
+        if (seq < 0) {
+            buffer[--pos] = '-';
+        }
+        return pos;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24)
+                | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8)
+                | (bytes[offset + 3] & 0xff);
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        return ((long) readInt(bytes, offset) << 32) | (readInt(bytes, offset + Integer.BYTES) & 0xffffffffL);
+    }
+
+    private static long pow(int base, int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= base;
+        }
+        return result;
+    }
+
+    /**
+     * The divisor has to stay below 2^31 so the long division cannot overflow,
+     * and a value of at least 2^63 divided by it must keep 7 or more digits.
+     */
+    private static long chunkDivisor(int base) {
+        int k = 1;
+        while (pow(base, k + 1) < Integer.MAX_VALUE
+                && (k + 1 + CODE_LENGTH - 1) * (Math.log(base) / Math.log(2)) <= 63) {
+            k++;
+        }
+        return pow(base, k);
+    }
+
+    private Workspace newWorkspace() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return new Workspace(mac);
         } catch (NoSuchAlgorithmException | InvalidKeyException e) {
             throw new RuntimeException("Error generating secure code", e);
         }
     }
+
+    private static final class Workspace {
+        final Mac mac;
+        // Long.MIN_VALUE is 19 digits plus the sign
+        final byte[] seqBytes = new byte[20];
+        final byte[] digest = new byte[DIGEST_LENGTH];
+        final int[] limbs = new int[LIMBS];
+        final char[] chars = new char[CODE_LENGTH];
+
+        Workspace(Mac mac) {
+            this.mac = mac;
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.sumanth.url_shortener.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding {@code burst} tokens, refilled at
+ * {@code permitsPerSecond}.
+ * <p>
+ * The whole state is one long, the time at which the bucket will be full
+ * again (the "theoretical arrival time" of GCRA). Taking a token moves it one
+ * interval later with a single CAS; a request is refused when that would put
+ * it more than {@code burst} intervals ahead of now. Nothing is allocated and
+ * no timer refills the bucket.
+ */
+public class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param nowNanos a {@link System#nanoTime()} reading; the bucket starts
+     *                 full.
+     */
+    public TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / permitsPerSecond));
+        this.toleranceNanos = intervalNanos * burst;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return 0 if a token was taken, otherwise how many nanoseconds until
+     *         one is available.
+     */
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            // Compared as a difference: nanoTime may be negative or wrap
+            long next = (current - nowNanos > 0 ? current : nowNanos) + intervalNanos;
+            long wait = next - nowNanos - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.sumanth.url_shortener.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.sumanth.url_shortener.exception.InvalidUrlException;
+
+/**
+ * Validates an http(s) URL and rewrites it into the form used for dedup, in
+ * one left-to-right pass into a single buffer.
+ * <p>
+ * The scheme and host are lowercased, default ports are dropped, dot segments
+ * and repeated slashes are removed from the path, escapes of unreserved
+ * characters are decoded and all other escapes use uppercase hex. Escapes of
+ * reserved characters such as {@code %2F} or {@code %26} are kept, so the
+ * result addresses the same resource. With {@code sortQuery} the query
+ * parameters are also ordered by name; repeated names keep their order.
+ * <p>
+ * Plain URLs come out exactly as the old {@code java.net.URI} based
+ * normaliser produced them, so their digests still match stored mappings.
+ */
+@Component
+public class UrlCanonicalizer {
+
+    private static final String HTTP = "http://";
+    private static final String HTTPS = "https://";
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private static final int PATH = 0;
+    private static final int QUERY = 1;
+    private static final int USER_INFO = 2;
+
+    // ASCII characters allowed unescaped in the path, in the query and fragment, and in the user info
+    private static final boolean[][] ALLOWED = new boolean[3][128];
+
+    static {
+        String unreserved = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~";
+        String subDelims = "!$&'()*+,;=";
+        mark(PATH, unreserved + subDelims + ":@");
+        mark(QUERY, unreserved + subDelims + ":@/?[]");
+        mark(USER_INFO, unreserved + subDelims + ":");
+    }
+
+    private final boolean sortQuery;
+
+    public UrlCanonicalizer() {
+        this(false);
+    }
+
+    @Autowired
+    public UrlCanonicalizer(@Value("${app.url-canonical.sort-query:false}") boolean sortQuery) {
+        this.sortQuery = sortQuery;
+    }
+
+    /**
+     * @return the canonical form; the argument itself if it already is one.
+     * @throws InvalidUrlException if the URL is not an absolute http(s) URL
+     *                             with a host.
+     */
+    public String canonicalize(String url) {
+        boolean https;
+        if (url.regionMatches(true, 0, HTTPS, 0, HTTPS.length())) {
+            https = true;
+        } else if (url.regionMatches(true, 0, HTTP, 0, HTTP.length())) {
+            https = false;
+        } else {
+            throw new InvalidUrlException("URL must start with http:// or https://");
+        }
+
+        int length = url.length();
+        StringBuilder out = new StringBuilder(length);
+        out.append(https ? HTTPS : HTTP);
+        int pos = https ? HTTPS.length() : HTTP.length();
+
+        // 1. Authority: [user-info@]host[:port]
+        int authorityEnd = indexOfAny(url, pos, "/?#");
+        int at = url.lastIndexOf('@', authorityEnd - 1);
+        if (at >= pos) {
+            appendComponent(url, pos, at, USER_INFO, out);
+            out.append('@');
+            pos = at + 1;
+        }
+        pos = appendHost(url, pos, authorityEnd, out);
+        appendPort(url, pos, authorityEnd, https, out);
+
+        // 2. Path, without dot segments or empty segments
+        int pathEnd = indexOfAny(url, authorityEnd, "?#");
+        appendPath(url, authorityEnd, pathEnd, out);
+
+        // 3. Query and fragment
+        int fragmentStart = url.indexOf('#', pathEnd);
+        if (fragmentStart < 0) {
+            fragmentStart = length;
+        }
+        if (pathEnd < fragmentStart) {
+            out.append('?');
+            appendQuery(url, pathEnd + 1, fragmentStart, out);
+        }
+        if (fragmentStart < length) {
+            out.append('#');
+            appendComponent(url, fragmentStart + 1, length, QUERY, out);
+        }
+
+        return url.contentEquals(out) ? url : out.toString();
+    }
+
+    private static int appendHost(String url, int start, int end, StringBuilder out) {
+        if (start < end && url.charAt(start) == '[') {
+            // IPv6 literal
+            int close = url.indexOf(']', start);
+            if (close < 0 || close >= end) {
+                throw illegal("authority", url, start);
+            }
+            out.append('[');
+            for (int i = start + 1; i < close; i++) {
+                char c = Character.toLowerCase(url.charAt(i));
+                if (!(isHexDigit(c) || c == ':' || c == '.')) {
+                    throw illegal("authority", url, i);
+                }
+                out.append(c);
+            }
+            out.append(']');
+            return close + 1;
+        }
+
+        int labelStart = start;
+        int i = start;
+        for (; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == ':') {
+                break;
+            }
+            if (c == '.') {
+                checkLabel(url, labelStart, i);
+                labelStart = i + 1;
+            } else if (!isAlphaNumeric(c) && c != '-') {
+                if (c < 128 && (ALLOWED[USER_INFO][c] || c == '%')) {
+                    // A registry name such as a_b.com; java.net.URI reports no host for these
+                    throw new InvalidUrlException("Invalid URL: Host cannot be empty");
+                }
+                throw illegal("authority", url, i);
+            }
+            out.append(Character.toLowerCase(c));
+        }
+        if (i == start) {
+            throw new InvalidUrlException("Invalid URL: Host cannot be empty");
+        }
+        // A trailing dot (fully qualified name) leaves an empty last label
+        if (labelStart < i) {
+            checkLabel(url, labelStart, i);
+        }
+        return i;
+    }
+
+    private static void checkLabel(String url, int start, int end) {
+        if (start == end || url.charAt(start) == '-' || url.charAt(end - 1) == '-') {
+            throw new InvalidUrlException("Invalid URL: Host cannot be empty");
+        }
+    }
+
+    private static void appendPort(String url, int start, int end, boolean https, StringBuilder out) {
+        if (start == end) {
+            return;
+        }
+        if (url.charAt(start) != ':') {
+            throw illegal("authority", url, start);
+        }
+        int port = 0;
+        for (int i = start + 1; i < end; i++) {
+            char c = url.charAt(i);
+            if (c < '0' || c > '9' || port > 65535) {
+                throw illegal("port", url, i);
+            }
+            port = port * 10 + (c - '0');
+        }
+        if (port > 65535) {
+            throw illegal("port", url, start + 1);
+        }
+        // An empty port means the default one too
+        if (start + 1 == end || port == (https ? 443 : 80)) {
+            return;
+        }
+        out.append(':').append(port);
+    }
+
+    /**
+     * Writes one segment at a time and drops it again if it turns out to be
+     * "." or "..", so the path is only walked once.
+     */
+    private static void appendPath(String url, int start, int end, StringBuilder out) {
+        int pathStart = out.length();
+        int i = start;
+        while (i < end) {
+            // i is at a '/'
+            int segmentEnd = url.indexOf('/', i + 1);
+            if (segmentEnd < 0 || segmentEnd > end) {
+                segmentEnd = end;
+            }
+            boolean last = segmentEnd == end;
+
+            int segmentStart = out.length();
+            out.append('/');
+            appendComponent(url, i + 1, segmentEnd, PATH, out);
+            int segmentLength = out.length() - segmentStart - 1;
+
+            if (segmentLength == 0 && !last) {
+                out.setLength(segmentStart);
+            } else if (segmentLength == 1 && out.charAt(segmentStart + 1) == '.') {
+                out.setLength(segmentStart);
+                if (last) {
+                    out.append('/');
+                }
+            } else if (segmentLength == 2 && out.charAt(segmentStart + 1) == '.'
+                    && out.charAt(segmentStart + 2) == '.') {
+                out.setLength(segmentStart);
+                out.setLength(Math.max(pathStart, out.lastIndexOf("/")));
+                if (last) {
+                    out.append('/');
+                }
+            }
+            i = segmentEnd;
+        }
+    }
+
+    private void appendQuery(String url, int start, int end, StringBuilder out) {
+        int firstAmpersand = url.indexOf('&', start);
+        if (!sortQuery || firstAmpersand < 0 || firstAmpersand >= end) {
+            appendComponent(url, start, end, QUERY, out);
+            return;
+        }
+
+        List<String> parameters = new ArrayList<>();
+        StringBuilder parameter = new StringBuilder(end - start);
+        int i = start;
+        while (i <= end) {
+            int next = url.indexOf('&', i);
+            if (next < 0 || next > end) {
+                next = end;
+            }
+            if (next > i) {
+                parameter.setLength(0);
+                appendComponent(url, i, next, QUERY, parameter);
+                parameters.add(parameter.toString());
+            }
+            i = next + 1;
+        }
+        // List.sort is stable, so repeated names keep their relative order
+        parameters.sort((a, b) -> name(a).compareTo(name(b)));
+        for (int p = 0; p < parameters.size(); p++) {
+            if (p > 0) {
+                out.append('&');
+            }
+            out.append(parameters.get(p));
+        }
+    }
+
+    private static String name(String parameter) {
+        int equals = parameter.indexOf('=');
+        return equals < 0 ? parameter : parameter.substring(0, equals);
+    }
+
+    /**
+     * Copies characters, normalising escapes and rejecting the ones
+     * {@code java.net.URI} rejects. Non-ASCII text is kept as it is.
+     */
+    private static void appendComponent(String url, int start, int end, int component, StringBuilder out) {
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= end || !isHexDigit(url.charAt(i + 1))
+                        || !isHexDigit(url.charAt(i + 2))) {
+                    throw new InvalidUrlException("Invalid URL format: Malformed escape pair at index " + i
+                            + ": " + url);
+                }
+                int decoded = Character.digit(url.charAt(i + 1), 16) << 4 | Character.digit(url.charAt(i + 2), 16);
+                if (isUnreserved(decoded)) {
+                    out.append((char) decoded);
+                } else {
+                    out.append('%').append(HEX_DIGITS[decoded >> 4]).append(HEX_DIGITS[decoded & 0xf]);
+                }
+                i += 2;
+            } else if (c < 128 ? ALLOWED[component][c] : !Character.isISOControl(c) && !Character.isSpaceChar(c)) {
+                out.append(c);
+            } else {
+                throw illegal(component == PATH ? "path" : component == QUERY ? "query" : "authority", url, i);
+            }
+        }
+    }
+
+    private static InvalidUrlException illegal(String component, String url, int index) {
+        return new InvalidUrlException("Invalid URL format: Illegal character in " + component + " at index "
+                + index + ": " + url);
+    }
+
+    private static int indexOfAny(String url, int from, String delimiters) {
+        for (int i = from; i < url.length(); i++) {
+            if (delimiters.indexOf(url.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return url.length();
+    }
+
+    private static boolean isUnreserved(int c) {
+        return c < 128 && (isAlphaNumeric((char) c) || c == '-' || c == '.' || c == '_' || c == '~');
+    }
+
+    private static boolean isAlphaNumeric(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    private static boolean isHexDigit(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static void mark(int component, String characters) {
+        for (int i = 0; i < characters.length(); i++) {
+            ALLOWED[component][characters.charAt(i)] = true;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.sumanth.url_shortener.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.mongodb.reactivestreams.client.MongoClient;
+
+class ReactiveMongoConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(MongoAutoConfiguration.class, MongoDataAutoConfiguration.class))
+            .withUserConfiguration(ReactiveMongoConfig.class)
+            .withPropertyValues("spring.data.mongodb.uri=mongodb://localhost:27017/links");
+
+    @Test
+    void shouldNotCreateAReactiveClientWhenTheReactiveServerIsOff() {
+        contextRunner.run(context -> {
+            assertThat(context).doesNotHaveBean(MongoClient.class);
+            assertThat(context).doesNotHaveBean(ReactiveMongoTemplate.class);
+        });
+    }
+
+    @Test
+    void shouldCreateAReactiveClientOnTheSameDatabaseWhenTheReactiveServerIsOn() {
+        contextRunner.withPropertyValues("app.reactive-redirect.enabled=true").run(context -> {
+            assertThat(context).hasSingleBean(MongoClient.class);
+            assertThat(context.getBean(ReactiveMongoTemplate.class).getMongoDatabase().block().getName())
+                    .isEqualTo("links");
+        });
+    }
+}
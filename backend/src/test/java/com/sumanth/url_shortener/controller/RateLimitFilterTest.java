@@ -0,0 +1,140 @@
+package com.sumanth.url_shortener.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.sumanth.url_shortener.security.JwtService;
+import com.sumanth.url_shortener.service.RateLimiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitFilterTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final JwtService jwtService = new JwtService(SECRET, 60_000, 100);
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimiter rateLimiter = new RateLimiter(redisTemplate, meterRegistry, Duration.ofMinutes(1), 100, Map.of(
+                RateLimiter.Scope.REDIRECT, new RateLimiter.Limit(1, 2, 0, 1),
+                RateLimiter.Scope.SHORTEN, new RateLimiter.Limit(100, 100, 10, 1),
+                RateLimiter.Scope.SHORTEN_BATCH, new RateLimiter.Limit(1, 1, 0, 1)));
+        filter = new RateLimitFilter(rateLimiter, jwtService, 64, List.of("shorten", "api"), true);
+    }
+
+    @Test
+    void doFilter_shouldRejectAClientPastItsBurstWithoutCallingTheChain() throws Exception {
+        assertNotNull(send(request("GET", "/abc", "10.0.0.1")).getRequest());
+        assertNotNull(send(request("GET", "/abc", "10.0.0.1")).getRequest());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request("GET", "/abc", "10.0.0.1"), response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentAsString().contains("\"errorCode\":\"RATE_LIMITED\""));
+        assertEquals(1, meterRegistry.get("url.ratelimit.requests").tag("scope", "redirect")
+                .tag("result", "rejected_local").counter().count());
+
+        // Another client has its own bucket
+        assertNotNull(send(request("GET", "/abc", "10.0.0.2")).getRequest());
+        verify(redisTemplate, never()).execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(Object[].class));
+    }
+
+    @Test
+    void doFilter_shouldRefuseShortenOnceTheClusterWindowIsFull() throws Exception {
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(Object[].class))).thenReturn(0L, 30_000L);
+        String token = jwtService.generateToken("octocat", "github", null, null, "user-1");
+
+        MockHttpServletRequest first = request("POST", "/shorten", "10.0.0.1");
+        first.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        assertNotNull(send(first).getRequest());
+
+        MockHttpServletRequest second = request("POST", "/shorten", "10.0.0.9");
+        second.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(second, response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+        assertEquals("30", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertEquals("user:user-1", filter.clientOf(second));
+    }
+
+    @Test
+    void doFilter_shouldNotLetBatchesDrawOnTheSingleShortenBudget() throws Exception {
+        assertNotNull(send(request("POST", "/shorten/batch", "10.0.0.1")).getRequest());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request("POST", "/shorten/batch", "10.0.0.1"), response, new MockFilterChain());
+        assertEquals(429, response.getStatus());
+
+        // Single shortens are counted separately
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(), anyList(), any(Object[].class))).thenReturn(0L);
+        assertNotNull(send(request("POST", "/shorten", "10.0.0.1")).getRequest());
+    }
+
+    @Test
+    void scopeOf_shouldOnlyLimitLookupsAndShortening() {
+        assertEquals(RateLimiter.Scope.REDIRECT, filter.scopeOf(request("GET", "/abc", "10.0.0.1")));
+        assertEquals(RateLimiter.Scope.SHORTEN, filter.scopeOf(request("POST", "/shorten", "10.0.0.1")));
+        assertEquals(RateLimiter.Scope.SHORTEN_BATCH, filter.scopeOf(request("POST", "/shorten/batch", "10.0.0.1")));
+        assertNull(filter.scopeOf(request("GET", "/api/me", "10.0.0.1")));
+        assertNull(filter.scopeOf(request("GET", "/shorten", "10.0.0.1")));
+        assertNull(filter.scopeOf(request("POST", "/abc", "10.0.0.1")));
+    }
+
+    @Test
+    void clientOf_shouldUseTheAddressTheProxyAppended() {
+        MockHttpServletRequest request = request("GET", "/abc", "10.0.0.1");
+        request.addHeader("X-Forwarded-For", "1.2.3.4, 203.0.113.7");
+
+        assertEquals("ip:203.0.113.7", filter.clientOf(request));
+        assertEquals("ip:10.0.0.1", filter.clientOf(request("GET", "/abc", "10.0.0.1")));
+    }
+
+    private MockFilterChain send(MockHttpServletRequest request) throws Exception {
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+}
@@ -0,0 +1,147 @@
+package com.sumanth.url_shortener.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.security.JwtService;
+import com.sumanth.url_shortener.service.ClickRecorder;
+import com.sumanth.url_shortener.service.RateLimiter;
+import com.sumanth.url_shortener.service.ShortCodeFilter;
+import com.sumanth.url_shortener.service.ShortDomains;
+import com.sumanth.url_shortener.service.UrlCacheService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveRedirectHandlerTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test";
+
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    @Mock
+    private ReactiveMongoTemplate mongoTemplate;
+
+    @Mock
+    private StringRedisTemplate blockingRedisTemplate;
+
+    @Mock
+    private ClickRecorder clickRecorder;
+
+    @Mock
+    private ObjectProvider<RateLimiter> rateLimiter;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToRouterFunction(handler().routes()).build();
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    void redirect_shouldRefuseAClientPastItsBurstBeforeAnyLookup() {
+        when(rateLimiter.getIfAvailable()).thenReturn(new RateLimiter(blockingRedisTemplate,
+                meterRegistry, Duration.ofMinutes(1), 100,
+                Map.of(RateLimiter.Scope.REDIRECT, new RateLimiter.Limit(1, 1, 0, 1))));
+        client = WebTestClient.bindToRouterFunction(handler().routes()).build();
+        when(valueOperations.get("abc")).thenReturn(Mono.just("https://example.com"));
+
+        client.get().uri("/abc").header(RateLimitFilter.FORWARDED_FOR, "10.0.0.1").exchange()
+                .expectStatus().isEqualTo(301);
+        client.get().uri("/abc").header(RateLimitFilter.FORWARDED_FOR, "10.0.0.1").exchange()
+                .expectStatus().isEqualTo(429)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+                .expectBody().jsonPath("$.errorCode").isEqualTo("RATE_LIMITED");
+
+        // Another client has its own bucket
+        client.get().uri("/abc").header(RateLimitFilter.FORWARDED_FOR, "10.0.0.2").exchange()
+                .expectStatus().isEqualTo(301);
+        verify(clickRecorder, times(2)).recordClick("abc");
+        // A refused request never reaches the lookup, so it is not timed
+        assertEquals(2, meterRegistry.get("url.redirect").tag("result", "found").timer().count());
+    }
+
+    @Test
+    void redirect_shouldServeFromRedisAndRecordClick() {
+        when(valueOperations.get("abc")).thenReturn(Mono.just("https://example.com"));
+
+        client.get().uri("/abc").exchange()
+                .expectStatus().isEqualTo(301)
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "https://example.com");
+
+        verify(clickRecorder).recordClick("abc");
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(UrlMapping.class));
+        assertEquals(1, meterRegistry.get("url.redirect").tag("result", "found").timer().count());
+    }
+
+    @Test
+    void redirect_shouldFallBackToDatabaseWhenRedisIsSlow() {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setLongUrl("https://example.com/db");
+        when(valueOperations.get("abc")).thenReturn(Mono.never());
+        when(valueOperations.set(anyString(), anyString(), any(Duration.class))).thenReturn(Mono.just(true));
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(Mono.just(mapping));
+
+        client.get().uri("/abc").exchange()
+                .expectStatus().isEqualTo(301)
+                .expectHeader().valueEquals(HttpHeaders.LOCATION, "https://example.com/db");
+
+        // The second request is answered by the local tier
+        client.get().uri("/abc").exchange().expectStatus().isEqualTo(301);
+        verify(mongoTemplate).findOne(any(Query.class), eq(UrlMapping.class));
+    }
+
+    @Test
+    void redirect_shouldReturnNotFoundForUnknownCode() {
+        when(valueOperations.get("missing")).thenReturn(Mono.empty());
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(Mono.empty());
+
+        client.get().uri("/missing").exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.errorCode").isEqualTo("URL_NOT_FOUND");
+
+        verify(clickRecorder, never()).recordClick(anyString());
+        assertEquals(1, meterRegistry.get("url.redirect").tag("result", "not_found").timer().count());
+    }
+
+    private ReactiveRedirectHandler handler() {
+        UrlCacheService urlCache = new UrlCacheService(blockingRedisTemplate, true, 100, Duration.ofMinutes(10));
+        ShortCodeFilter shortCodeFilter = new ShortCodeFilter(null, null, false, 1000, 0.01,
+                Duration.ofHours(1), Duration.ofMinutes(1), 1000);
+        return new ReactiveRedirectHandler(redisTemplate, mongoTemplate, urlCache, clickRecorder, shortCodeFilter,
+                new ShortDomains(), null, rateLimiter, new JwtService(SECRET, 60_000, 100), true,
+                Duration.ofMillis(50), meterRegistry);
+    }
+}
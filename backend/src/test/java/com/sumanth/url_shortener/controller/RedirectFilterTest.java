@@ -0,0 +1,111 @@
+package com.sumanth.url_shortener.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.sumanth.url_shortener.exception.UrlNotFoundException;
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.service.ShortDomains;
+import com.sumanth.url_shortener.service.UrlShortenService;
+
+@ExtendWith(MockitoExtension.class)
+class RedirectFilterTest {
+
+    @Mock
+    private UrlShortenService urlShortenService;
+
+    private RedirectFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new RedirectFilter(urlShortenService, new ShortDomains(List.of("go.example.com")), 301, 64, List.of("shorten", "logout"));
+    }
+
+    @Test
+    void doFilter_shouldRedirectWithoutCallingTheChain() throws Exception {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setLongUrl("https://example.com/a");
+        when(urlShortenService.expandUrl(null, "abc", true)).thenReturn(mapping);
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/abc"), response, chain);
+
+        assertEquals(301, response.getStatus());
+        assertEquals("https://example.com/a", response.getHeader(HttpHeaders.LOCATION));
+        assertEquals(HttpHeaders.LOCATION, response.getHeader(HttpHeaders.ACCESS_CONTROL_EXPOSE_HEADERS));
+        assertNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_brandedHost_shouldLookUpTheCodeInThatDomain() throws Exception {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setLongUrl("https://example.com/b");
+        when(urlShortenService.expandUrl("go.example.com", "abc", true)).thenReturn(mapping);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/abc");
+        request.setServerName("Go.Example.com");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+
+        assertEquals("https://example.com/b", response.getHeader(HttpHeaders.LOCATION));
+    }
+
+    @Test
+    void doFilter_unknownCode_shouldWriteErrorResponse() throws Exception {
+        when(urlShortenService.expandUrl(null, "nope", true)).thenThrow(new UrlNotFoundException("nope"));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/nope"), response, new MockFilterChain());
+
+        assertEquals(404, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertTrue(response.getContentAsString().startsWith(
+                "{\"errorCode\":\"URL_NOT_FOUND\",\"message\":\"URL not found for short code: nope\",\"timestamp\":\""));
+    }
+
+    @Test
+    void doFilter_shouldPassOnRequestsItDoesNotServe() throws Exception {
+        List<MockHttpServletRequest> requests = List.of(
+                new MockHttpServletRequest("POST", "/abc"),
+                new MockHttpServletRequest("GET", "/abc/stats"),
+                new MockHttpServletRequest("GET", "/logout"),
+                new MockHttpServletRequest("GET", "/a.b"),
+                new MockHttpServletRequest("GET", "/"),
+                withHeader(HttpHeaders.ACCEPT, "application/json"),
+                withHeader(HttpHeaders.ORIGIN, "http://localhost:3000"));
+
+        for (MockHttpServletRequest request : requests) {
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(request, new MockHttpServletResponse(), chain);
+            assertNotNull(chain.getRequest(), request.getMethod() + " " + request.getRequestURI());
+        }
+        verify(urlShortenService, never()).expandUrl(any(), anyString(), anyBoolean());
+    }
+
+    private static MockHttpServletRequest withHeader(String name, String value) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/abc");
+        request.addHeader(name, value);
+        return request;
+    }
+}
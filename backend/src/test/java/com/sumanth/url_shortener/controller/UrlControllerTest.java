@@ -0,0 +1,83 @@
+package com.sumanth.url_shortener.controller;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.service.AliasReservations;
+import com.sumanth.url_shortener.service.BulkShortenService;
+import com.sumanth.url_shortener.service.ClickStatsService;
+import com.sumanth.url_shortener.service.ClickTimeSeriesService;
+import com.sumanth.url_shortener.service.ShortDomains;
+import com.sumanth.url_shortener.service.UrlShortenService;
+
+@ExtendWith(MockitoExtension.class)
+class UrlControllerTest {
+
+    @Mock
+    private UrlShortenService urlShortenService;
+
+    @Mock
+    private BulkShortenService bulkShortenService;
+
+    @Mock
+    private ClickStatsService clickStatsService;
+
+    @Mock
+    private ClickTimeSeriesService clickTimeSeriesService;
+
+    @Mock
+    private AliasReservations aliasReservations;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        UrlController controller = new UrlController(urlShortenService, bulkShortenService, clickStatsService,
+                clickTimeSeriesService, aliasReservations, new ShortDomains(List.of("go.example.com")),
+                new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void getUrlJson_shouldDescribeTheRequestedCodeWithoutPrivateFields() throws Exception {
+        // What a cache hit returns: only the URL
+        UrlMapping cached = new UrlMapping();
+        cached.setLongUrl("https://a.com");
+        when(urlShortenService.expandUrl("go.example.com", "abc", true)).thenReturn(cached);
+
+        mockMvc.perform(get("/abc").header("Host", "go.example.com").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.shortCode").value("abc"))
+                .andExpect(jsonPath("$.domain").value("go.example.com"))
+                .andExpect(jsonPath("$.longUrl").value("https://a.com"))
+                .andExpect(jsonPath("$.ownerId").doesNotExist())
+                .andExpect(jsonPath("$.maxClicks").doesNotExist());
+    }
+
+    @Test
+    void getUrlJson_shouldLeaveOutTheDefaultDomain() throws Exception {
+        UrlMapping cached = new UrlMapping();
+        cached.setLongUrl("https://a.com");
+        when(urlShortenService.expandUrl(null, "abc", true)).thenReturn(cached);
+
+        mockMvc.perform(get("/abc").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.shortCode").value("abc"))
+                .andExpect(jsonPath("$.domain").doesNotExist());
+    }
+}
@@ -0,0 +1,60 @@
+package com.sumanth.url_shortener.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.Authentication;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "test-secret-test-secret-test-secret-test";
+
+    private final JwtService jwtService = new JwtService(SECRET, 60_000, 100);
+
+    @Test
+    void authenticate_shouldBuildAuthenticationFromClaims() {
+        String token = jwtService.generateToken("octocat", "github", null, "octocat@example.com");
+
+        Authentication auth = jwtService.authenticate(token);
+
+        assertNotNull(auth);
+        assertEquals("octocat", auth.getPrincipal());
+        assertEquals(Map.of("username", "octocat", "provider", "github", "avatar", "",
+                "email", "octocat@example.com"), auth.getDetails());
+    }
+
+    @Test
+    void userIdOf_shouldReadTheUserIdClaim() {
+        String owned = jwtService.generateToken("octocat", "github", null, null, "64b7f0c2a1e4d93b5c8e1f20");
+        String legacy = jwtService.generateToken("octocat", "github", null, null);
+
+        assertEquals("64b7f0c2a1e4d93b5c8e1f20", JwtService.userIdOf(jwtService.authenticate(owned)));
+        assertNull(JwtService.userIdOf(jwtService.authenticate(legacy)));
+        assertNull(JwtService.userIdOf(null));
+    }
+
+    @Test
+    void authenticate_shouldReuseTheAuthenticationForTheSameToken() {
+        String token = jwtService.generateToken("octocat", "github", null, null);
+
+        assertSame(jwtService.authenticate(token), jwtService.authenticate(token));
+    }
+
+    @Test
+    void authenticate_shouldRejectInvalidAndExpiredTokens() {
+        String token = jwtService.generateToken("octocat", "github", null, null);
+        String expired = new JwtService(SECRET, -1000).generateToken("octocat", "github", null, null);
+        String foreign = new JwtService(SECRET.replace('t', 'x'), 60_000)
+                .generateToken("octocat", "github", null, null);
+
+        assertNull(jwtService.authenticate(token.substring(0, token.length() - 2)));
+        assertNull(jwtService.authenticate(expired));
+        assertNull(jwtService.authenticate(foreign));
+        assertNull(jwtService.authenticate("not-a-token"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisHashCommands;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class AggregatingClickRecorderTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisHashCommands hashCommands;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Test
+    void pendingClicks_shouldReadTheSharedDeltasOfAPageWithOneHmget() {
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.multiGet(AggregatingClickRecorder.COUNTS_KEY, List.of("a", "b")))
+                .thenReturn(Arrays.asList("5", null));
+        AggregatingClickRecorder recorder = new AggregatingClickRecorder(redisTemplate);
+        recorder.recordClick("a");
+        recorder.recordClick("b");
+
+        assertEquals(Map.of("a", 6L, "b", 1L), recorder.pendingClicks(List.of("a", "b")));
+        verify(hashOperations, never()).get(any(), any());
+    }
+
+    @Test
+    void flush_shouldNotLoseClicksRecordedWhileIdleCodesAreDropped() throws Exception {
+        AtomicLong pushed = new AtomicLong();
+        when(connection.hashCommands()).thenReturn(hashCommands);
+        when(hashCommands.hIncrBy(any(byte[].class), any(byte[].class), anyLong())).thenAnswer(invocation -> {
+            pushed.addAndGet(invocation.getArgument(2, Long.class));
+            return null;
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            invocation.getArgument(0, RedisCallback.class).doInRedis(connection);
+            return List.of();
+        });
+        AggregatingClickRecorder recorder = new AggregatingClickRecorder(redisTemplate);
+
+        int threads = 4;
+        int clicksPerThread = 50_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> clickers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread clicker = new Thread(() -> {
+                // Sparse clicks on many codes, so flushes keep dropping adders in use
+                for (int i = 0; i < clicksPerThread; i++) {
+                    recorder.recordClick("code" + (i % 64));
+                }
+                done.countDown();
+            });
+            clickers.add(clicker);
+            clicker.start();
+        }
+        while (done.getCount() > 0) {
+            recorder.flush();
+        }
+        for (Thread clicker : clickers) {
+            clicker.join();
+        }
+        recorder.flush();
+
+        assertEquals((long) threads * clicksPerThread, pushed.get());
+    }
+}
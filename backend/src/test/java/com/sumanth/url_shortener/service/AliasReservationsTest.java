@@ -0,0 +1,108 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.sumanth.url_shortener.controller.dto.AliasAvailabilityDto;
+import com.sumanth.url_shortener.exception.InvalidAliasException;
+import com.sumanth.url_shortener.model.UrlMapping;
+
+@ExtendWith(MockitoExtension.class)
+class AliasReservationsTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ShortCodeFilter shortCodeFilter;
+    private AliasReservations aliasReservations;
+
+    @BeforeEach
+    void setUp() {
+        shortCodeFilter = new ShortCodeFilter(mongoTemplate, redisTemplate, true, 1000, 0.001,
+                Duration.ofHours(1), Duration.ofMinutes(1), 1000);
+        aliasReservations = new AliasReservations(mongoTemplate, redisTemplate, shortCodeFilter, 3, 64, 3,
+                List.of("shorten", "logout"));
+    }
+
+    @Test
+    void check_takenAlias_shouldSuggestFreeVariantsWithoutQueryingMongo() {
+        loadWith(new UrlMapping(null, null, null, null, "docs", null, null, 0, null, true, null, null, null),
+                new UrlMapping(null, null, null, null, "docs-2", null, null, 0, null, true, null, null, null),
+                new UrlMapping(null, null, null, null, "docs", null, null, 0, "go.example.com", true, null, null,
+                        null));
+
+        AliasAvailabilityDto taken = aliasReservations.check(null, "docs");
+        AliasAvailabilityDto free = aliasReservations.check("go.example.com", "docs-2");
+
+        assertFalse(taken.isAvailable());
+        assertEquals(List.of("docs-3", "docs-4", "docs-5"), taken.getSuggestions());
+        assertTrue(free.isAvailable());
+        verify(mongoTemplate, never()).exists(any(Query.class), eq(UrlMapping.class));
+    }
+
+    @Test
+    void isTaken_shouldConfirmCodesTheFilterCannotRuleOut() {
+        when(mongoTemplate.exists(any(Query.class), eq(UrlMapping.class))).thenReturn(true);
+
+        // The filter is not built yet, so any generated code may exist
+        assertTrue(aliasReservations.isTaken(null, "abc1234"));
+        assertFalse(aliasReservations.isAlias(null, "abc1234"));
+    }
+
+    @Test
+    void validate_shouldRejectBadLengthCharactersAndReservedPaths() {
+        assertThrows(InvalidAliasException.class, () -> aliasReservations.validate("ab"));
+        assertThrows(InvalidAliasException.class, () -> aliasReservations.validate("a".repeat(65)));
+        assertThrows(InvalidAliasException.class, () -> aliasReservations.validate("my.link"));
+        assertThrows(InvalidAliasException.class, () -> aliasReservations.validate("logout"));
+        aliasReservations.validate("my-awesome_link");
+    }
+
+    @Test
+    void onMessage_shouldAddAliasesClaimedOnOtherInstances() {
+        aliasReservations.onMessage(message("docs"), null);
+        aliasReservations.onMessage(message("go.example.com/promo"), null);
+
+        assertTrue(aliasReservations.isAlias(null, "docs"));
+        assertTrue(aliasReservations.isAlias("go.example.com", "promo"));
+        assertFalse(aliasReservations.isAlias(null, "promo"));
+    }
+
+    private void loadWith(UrlMapping... aliases) {
+        when(mongoTemplate.estimatedCount(UrlMapping.class)).thenReturn((long) aliases.length);
+        when(mongoTemplate.stream(any(Query.class), eq(UrlMapping.class)))
+                .thenReturn(Stream.of(aliases)).thenReturn(Stream.of(aliases));
+        shortCodeFilter.rebuild();
+        aliasReservations.load();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(AliasReservations.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,169 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.sumanth.url_shortener.controller.dto.BulkShortenResultDto;
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.repository.UrlMappingRepository;
+import com.sumanth.url_shortener.util.SecureCodeGenerator;
+import com.sumanth.url_shortener.util.UrlCanonicalizer;
+
+@ExtendWith(MockitoExtension.class)
+class BulkShortenServiceTest {
+
+    @Mock
+    private UrlMappingRepository repo;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private CounterService counterService;
+
+    @Mock
+    private SecureCodeGenerator secureCodeGenerator;
+
+    @Mock
+    private AliasReservations aliasReservations;
+
+    @Mock
+    private UrlMappingWriteBehind writeBehind;
+
+    private BulkShortenService bulkShortenService;
+
+    @BeforeEach
+    void setUp() {
+        ShortCodeFilter shortCodeFilter = new ShortCodeFilter(null, null, false, 1000, 0.01,
+                Duration.ofHours(1), Duration.ofMinutes(1), 1000);
+        bulkShortenService = new BulkShortenService(repo, mongoTemplate, counterService, secureCodeGenerator,
+                shortCodeFilter, aliasReservations, writeBehind, new UrlCanonicalizer(), 2, true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shortenAll_shouldReuseExistingAndInsertNewInOneBulkPerChunk() throws Exception {
+        // Stored before the binary digest existed, so only the legacy hex matches
+        String existingHash = UrlShortenService.legacyHash(
+                UrlShortenService.digest(new UrlCanonicalizer().canonicalize("https://a.com")));
+        when(repo.findByUrlDigestInOrUrlHashIn(any(), any())).thenAnswer(invocation -> {
+            Collection<String> hashes = invocation.getArgument(1);
+            return hashes.contains(existingHash)
+                    ? List.of(new UrlMapping("1", "https://a.com", existingHash, null, "existing", null, null, 0,
+                            null, false, null, null, null))
+                    : List.of();
+        });
+        when(counterService.reserve(1)).thenReturn(10L, 20L);
+        when(secureCodeGenerator.generate(anyLong())).thenAnswer(invocation -> "code" + invocation.getArgument(0));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        List<BulkShortenResultDto> results = new ArrayList<>();
+        int processed = bulkShortenService.shortenAll(
+                List.of("https://A.com", "https://b.com", "not-a-url", "https://c.com").iterator(), null,
+                results::addAll);
+
+        assertEquals(4, processed);
+        assertEquals("existing", results.get(0).getShortUrl());
+        assertEquals(false, results.get(0).getCreated());
+        assertEquals("code10", results.get(1).getShortUrl());
+        assertEquals(true, results.get(1).getCreated());
+        assertNull(results.get(2).getShortUrl());
+        assertNotNull(results.get(2).getError());
+        assertEquals("code20", results.get(3).getShortUrl());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+
+        // Two chunks of two URLs: one lookup, one reservation and one bulk insert each
+        ArgumentCaptor<List<UrlMapping>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations, times(2)).insert(inserted.capture());
+        assertEquals("https://b.com", inserted.getAllValues().get(0).get(0).getLongUrl());
+        verify(repo, times(2)).findByUrlDigestInOrUrlHashIn(any(), any());
+    }
+
+    @Test
+    void shortenChunk_shouldInsertDuplicateUrlsOnce() {
+        when(repo.findByUrlDigestInOrUrlHashIn(any(), any())).thenReturn(List.of());
+        when(counterService.reserve(1)).thenReturn(5L);
+        when(secureCodeGenerator.generate(5L)).thenReturn("code5");
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        List<BulkShortenResultDto> results = bulkShortenService.shortenChunk(
+                List.of("https://b.com/x", "HTTPS://B.COM:443/x"), 0);
+
+        assertEquals("code5", results.get(0).getShortUrl());
+        assertEquals("code5", results.get(1).getShortUrl());
+        assertTrue(results.get(0).getCreated());
+        verify(counterService).reserve(eq(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shortenChunk_ownedBatch_shouldGiveEveryUrlItsOwnLink() {
+        when(counterService.reserve(2)).thenReturn(7L);
+        when(secureCodeGenerator.generate(anyLong())).thenAnswer(invocation -> "code" + invocation.getArgument(0));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        List<BulkShortenResultDto> results = bulkShortenService.shortenChunk(
+                List.of("https://b.com/x", "not-a-url", "https://b.com/x"), 0, "user-1");
+
+        assertEquals("code7", results.get(0).getShortUrl());
+        assertNotNull(results.get(1).getError());
+        assertEquals("code8", results.get(2).getShortUrl());
+        assertTrue(results.get(2).getCreated());
+
+        ArgumentCaptor<List<UrlMapping>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(inserted.capture());
+        for (UrlMapping mapping : inserted.getValue()) {
+            assertEquals("user-1", mapping.getOwnerId());
+            assertNull(mapping.getUrlDigest());
+        }
+        verify(repo, never()).findByUrlDigestInOrUrlHashIn(any(), any());
+    }
+
+    @Test
+    void shortenChunk_shouldReuseCodesReservedForQueuedMappings() {
+        when(repo.findByUrlDigestInOrUrlHashIn(any(), any())).thenReturn(List.of());
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.reservations(anyList())).thenReturn(Collections.singletonList("queued"));
+
+        List<BulkShortenResultDto> results = bulkShortenService.shortenChunk(List.of("https://b.com/x"), 0);
+
+        assertEquals("queued", results.get(0).getShortUrl());
+        assertEquals(false, results.get(0).getCreated());
+        verify(counterService, never()).reserve(anyInt());
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(UrlMapping.class));
+    }
+}
@@ -0,0 +1,91 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.sumanth.url_shortener.model.UrlMapping;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmerTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @Test
+    void warmUp_shouldLoadTopAndRecentMappingsOnceInBatches() {
+        UrlCacheService urlCache = new UrlCacheService(redisTemplate, true, 100, Duration.ofMinutes(10));
+        CacheWarmer warmer = new CacheWarmer(mongoTemplate, redisTemplate, urlCache, true, 3, 2, 2, 2,
+                Duration.ofSeconds(10));
+        when(mongoTemplate.stream(argThat(sortedBy("clickCount")), eq(UrlMapping.class)))
+                .thenReturn(Stream.of(mapping("a"), mapping("b"), mapping("c")));
+        // "c" is both popular and recent; it is only written once
+        when(mongoTemplate.stream(argThat(sortedBy("createdAt")), eq(UrlMapping.class)))
+                .thenReturn(Stream.of(mapping("c"), mapping("d")));
+
+        warmer.warmUp();
+
+        // a+b, c, d
+        verify(redisTemplate, times(3)).executePipelined(any(RedisCallback.class));
+        assertEquals(4L, warmer.stats().get("warmed"));
+        assertEquals(false, warmer.stats().get("timedOut"));
+        assertEquals("https://d.com", urlCache.getLocal("d"));
+        assertNull(urlCache.getLocal("e"));
+    }
+
+    @Test
+    void ensureIndexes_shouldIndexBothSortFields() {
+        UrlCacheService urlCache = new UrlCacheService(redisTemplate, true, 100, Duration.ofMinutes(10));
+        CacheWarmer warmer = new CacheWarmer(mongoTemplate, redisTemplate, urlCache, true, 3, 2, 2, 2,
+                Duration.ofSeconds(10));
+        when(mongoTemplate.indexOps(UrlMapping.class)).thenReturn(indexOperations);
+
+        warmer.ensureIndexes();
+
+        ArgumentCaptor<IndexDefinition> indexes = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations, times(2)).createIndex(indexes.capture());
+        List<IndexDefinition> created = indexes.getAllValues();
+        assertEquals(new Document("clickCount", -1), created.get(0).getIndexKeys());
+        assertEquals(new Document("createdAt", -1), created.get(1).getIndexKeys());
+    }
+
+    private static ArgumentMatcher<Query> sortedBy(String field) {
+        return query -> query != null && query.getSortObject().containsKey(field);
+    }
+
+    private static UrlMapping mapping(String shortCode) {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setShortCode(shortCode);
+        mapping.setLongUrl("https://" + shortCode + ".com");
+        return mapping;
+    }
+}
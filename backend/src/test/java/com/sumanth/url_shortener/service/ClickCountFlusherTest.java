@@ -0,0 +1,79 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+@ExtendWith(MockitoExtension.class)
+class ClickCountFlusherTest {
+
+    private static final String OWN_KEY = ClickCountFlusher.PROCESSING_KEY_PREFIX + "pod-b";
+    private static final String DEAD_KEY = ClickCountFlusher.PROCESSING_KEY_PREFIX + "pod-a";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private ClickCountWriter clickCountWriter;
+
+    @Mock
+    private Cursor<String> cursor;
+
+    private ClickCountFlusher flusher;
+
+    @BeforeEach
+    void setUp() {
+        flusher = new ClickCountFlusher(redisTemplate, clickCountWriter, "pod-b", Duration.ofMinutes(5));
+        when(redisTemplate.scan(any(ScanOptions.class))).thenReturn(cursor);
+        when(cursor.hasNext()).thenReturn(true, true, false);
+        when(cursor.next()).thenReturn(OWN_KEY, DEAD_KEY);
+    }
+
+    @Test
+    void recoverOrphans_shouldAdoptAndPersistTheBatchOfADeadInstance() {
+        when(redisTemplate.execute(ArgumentMatchers.<RedisCallback<Duration>>any())).thenReturn(Duration.ofMinutes(30));
+        when(redisTemplate.hasKey(OWN_KEY)).thenReturn(false, true);
+        when(redisTemplate.renameIfAbsent(DEAD_KEY, OWN_KEY)).thenReturn(true);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries(OWN_KEY)).thenReturn(Map.of("abc", "7"));
+
+        flusher.recoverOrphans();
+
+        ArgumentCaptor<ClickBatch> batch = ArgumentCaptor.forClass(ClickBatch.class);
+        verify(clickCountWriter).applyClicks(batch.capture());
+        assertEquals(Map.of("abc", 7L), batch.getValue().shortCodeCounts());
+        verify(redisTemplate).delete(OWN_KEY);
+    }
+
+    @Test
+    void recoverOrphans_shouldLeaveAKeyThatIsStillInUse() {
+        when(redisTemplate.execute(ArgumentMatchers.<RedisCallback<Duration>>any())).thenReturn(Duration.ofSeconds(8));
+
+        flusher.recoverOrphans();
+
+        verify(redisTemplate, never()).renameIfAbsent(anyString(), anyString());
+        verify(clickCountWriter, never()).applyClicks(any());
+    }
+}
@@ -0,0 +1,81 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.sumanth.url_shortener.model.UrlMapping;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ClickCountWriterTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private ClickTimeSeriesService clickTimeSeriesService;
+
+    @Mock
+    private ClickStatsService clickStatsService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ClickCountWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new ClickCountWriter(mongoTemplate, clickTimeSeriesService, clickStatsService, meterRegistry);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+    }
+
+    @Test
+    void applyClicks_shouldNotFailTheBatchOnceTheCountersAreWritten() {
+        doThrow(new DataAccessResourceFailureException("timeout"))
+                .when(clickTimeSeriesService).recordClicks(anyMap());
+
+        // Returning normally is what keeps the caller from replaying the counter write
+        writer.applyClicks(batch());
+
+        verify(bulkOperations).updateOne(any(Query.class), any(Update.class));
+        verify(bulkOperations).execute();
+        assertEquals(1, meterRegistry.get("clicks.timeseries.failures").counter().count());
+    }
+
+    @Test
+    void applyClicks_shouldFailTheBatchWhenTheCounterWriteFails() {
+        when(bulkOperations.execute()).thenThrow(new DataAccessResourceFailureException("timeout"));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> writer.applyClicks(batch()));
+
+        verify(clickStatsService, never()).addPersistedClicks(anyMap());
+        verify(clickTimeSeriesService, never()).recordClicks(anyMap());
+    }
+
+    private static ClickBatch batch() {
+        ClickBatch batch = new ClickBatch();
+        batch.add("abc", 3, Instant.parse("2026-01-01T10:15:30Z"));
+        return batch;
+    }
+}
@@ -0,0 +1,40 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class ClickGranularityTest {
+
+    private static final Instant CLICK = Instant.parse("2024-02-29T13:45:12Z");
+
+    @Test
+    void bucketsAndSlotsShouldRoundTripToTheClickTime() {
+        for (ClickGranularity granularity : ClickGranularity.values()) {
+            Instant bucketStart = granularity.bucketStart(CLICK);
+            Instant slotStart = granularity.slotStart(bucketStart, granularity.slot(CLICK));
+
+            assertEquals(CLICK.truncatedTo(granularity.slotUnit()), slotStart, granularity.name());
+        }
+    }
+
+    @Test
+    void dayBucketsShouldCoverWholeMonths() {
+        Instant bucketStart = ClickGranularity.DAY.bucketStart(CLICK);
+
+        assertEquals(Instant.parse("2024-02-01T00:00:00Z"), bucketStart);
+        assertEquals(29, ClickGranularity.DAY.slot(CLICK));
+        assertEquals(Instant.parse("2024-03-01T00:00:00Z"), ClickGranularity.DAY.nextBucketStart(bucketStart));
+    }
+
+    @Test
+    void minuteBucketsShouldCoverOneHour() {
+        Instant bucketStart = ClickGranularity.MINUTE.bucketStart(CLICK);
+
+        assertEquals(Instant.parse("2024-02-29T13:00:00Z"), bucketStart);
+        assertEquals(45, ClickGranularity.MINUTE.slot(CLICK));
+        assertEquals(Instant.parse("2024-02-29T14:00:00Z"), ClickGranularity.MINUTE.nextBucketStart(bucketStart));
+    }
+}
@@ -0,0 +1,74 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.sumanth.url_shortener.exception.UrlNotFoundException;
+import com.sumanth.url_shortener.model.UrlMapping;
+
+@ExtendWith(MockitoExtension.class)
+class ClickStatsServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ClickRecorder clickRecorder;
+
+    private ClickStatsService clickStatsService;
+
+    @BeforeEach
+    void setUp() {
+        clickStatsService = new ClickStatsService(mongoTemplate, clickRecorder, 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void getClickCount_shouldLoadOnceAndAddPendingClicks() {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setClickCount(40);
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(mapping);
+        when(clickRecorder.pendingClicks("abc")).thenReturn(2L);
+
+        assertEquals(42, clickStatsService.getClickCount("abc"));
+        assertEquals(42, clickStatsService.getClickCount("abc"));
+
+        verify(mongoTemplate, times(1)).findOne(any(Query.class), eq(UrlMapping.class));
+    }
+
+    @Test
+    void addPersistedClicks_shouldBumpCachedCount() {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setClickCount(10);
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(mapping);
+
+        clickStatsService.getClickCount("abc");
+        clickStatsService.addPersistedClicks(Map.of("abc", 5L, "uncached", 3L));
+
+        assertEquals(15, clickStatsService.getClickCount("abc"));
+        verify(mongoTemplate, times(1)).findOne(any(Query.class), eq(UrlMapping.class));
+    }
+
+    @Test
+    void getClickCount_shouldThrowForUnknownCode() {
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(null);
+
+        assertThrows(UrlNotFoundException.class, () -> clickStatsService.getClickCount("missing"));
+    }
+}
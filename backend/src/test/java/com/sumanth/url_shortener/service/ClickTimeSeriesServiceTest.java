@@ -0,0 +1,48 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import com.sumanth.url_shortener.model.ClickBucket;
+
+@ExtendWith(MockitoExtension.class)
+class ClickTimeSeriesServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @Test
+    void ensureIndexes_shouldCreateTheRangeAndTtlIndexes() {
+        when(mongoTemplate.indexOps(ClickBucket.class)).thenReturn(indexOperations);
+        ClickTimeSeriesService service = new ClickTimeSeriesService(mongoTemplate, Duration.ofDays(7),
+                Duration.ofDays(90), Duration.ZERO, 20000);
+
+        service.ensureIndexes();
+
+        ArgumentCaptor<IndexDefinition> indexes = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations, times(2)).createIndex(indexes.capture());
+        List<IndexDefinition> created = indexes.getAllValues();
+        assertEquals(new Document("shortCode", 1).append("granularity", 1).append("start", 1),
+                created.get(0).getIndexKeys());
+        assertEquals(new Document("expireAt", 1), created.get(1).getIndexKeys());
+        assertEquals(0L, created.get(1).getIndexOptions().get("expireAfterSeconds"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.sumanth.url_shortener.model.Counter;
+
+@ExtendWith(MockitoExtension.class)
+public class CounterServiceTest {
+
+    private static final int BLOCK_SIZE = 100;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final AtomicLong storedSeq = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Counter.class)))
+                .thenAnswer(invocation -> {
+                    Update update = invocation.getArgument(1);
+                    Document inc = (Document) update.getUpdateObject().get("$inc");
+                    return new Counter("url_sequence", storedSeq.addAndGet(((Number) inc.get("seq")).longValue()));
+                });
+    }
+
+    @Test
+    void getNextSequence_shouldHandOutContiguousNumbersFromLeasedBlocks() {
+        CounterService counterService = new CounterService(mongoTemplate, BLOCK_SIZE, 20);
+
+        for (long expected = 1; expected <= 250; expected++) {
+            assertEquals(expected, counterService.getNextSequence());
+        }
+        // Three blocks cover 250 numbers; a fourth may have been prefetched
+        verify(mongoTemplate, atMost(4)).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(Counter.class));
+    }
+
+    @Test
+    void getNextSequence_shouldContinueFromExistingCounterValue() {
+        storedSeq.set(41);
+        CounterService counterService = new CounterService(mongoTemplate, BLOCK_SIZE, 20);
+
+        assertEquals(42, counterService.getNextSequence());
+    }
+
+    @Test
+    void reserve_shouldTakeWholeRangeInOneIncrementAfterLeasedBlock() {
+        CounterService counterService = new CounterService(mongoTemplate, BLOCK_SIZE, 0);
+
+        assertEquals(1, counterService.getNextSequence());
+        assertEquals(BLOCK_SIZE + 1, counterService.reserve(500));
+        assertEquals(BLOCK_SIZE + 500, storedSeq.get());
+        assertEquals(2, counterService.getNextSequence());
+    }
+
+    @Test
+    void getNextSequence_shouldBeUniqueUnderConcurrency() throws Exception {
+        CounterService counterService = new CounterService(mongoTemplate, BLOCK_SIZE, 20);
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 1000;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(seen.add(counterService.getNextSequence()));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+
+        assertEquals(threads * perThread, seen.size());
+    }
+}
@@ -0,0 +1,211 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import io.lettuce.core.RedisBusyException;
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.StreamMessage;
+import io.lettuce.core.api.async.RedisStreamAsyncCommands;
+import io.lettuce.core.models.stream.ClaimedMessages;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class RedisStreamConsumerTest {
+
+    private static final byte[] RAW_STREAM_KEY = RedisStreamConsumer.STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private RedisConnection connection;
+
+    @Mock
+    private RedisStreamCommands streamCommands;
+
+    @Mock
+    private RedisStreamAsyncCommands<byte[], byte[]> nativeCommands;
+
+    @Mock
+    private ClickCountWriter clickCountWriter;
+
+    private RedisStreamConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new RedisStreamConsumer(redisTemplate, clickCountWriter, "pod-a", 2, 20, Duration.ofMinutes(1),
+                new SimpleMeterRegistry());
+        when(redisTemplate.execute(ArgumentMatchers.<RedisCallback<Object>>any()))
+                .thenAnswer(invocation -> invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+        when(connection.streamCommands()).thenReturn(streamCommands);
+        when(connection.getNativeConnection()).thenReturn(nativeCommands);
+        when(redisTemplate.<Object, Object>opsForStream()).thenReturn(streamOperations);
+    }
+
+    @Test
+    void consumeClickEvents_shouldJoinAGroupAnotherInstanceCreated() throws Exception {
+        when(streamCommands.xGroupCreate(any(byte[].class), anyString(), any(ReadOffset.class), anyBoolean()))
+                .thenThrow(new RedisSystemException("Error in execution",
+                        new RedisBusyException("BUSYGROUP Consumer Group name already exists")));
+        claims(List.of(page("0-0")));
+        whenRead().thenReturn(List.of());
+
+        consumer.consumeClickEvents();
+        consumer.consumeClickEvents();
+
+        verify(streamCommands).xGroupCreate(RAW_STREAM_KEY, RedisStreamConsumer.GROUP, ReadOffset.from("0"), true);
+        // Neither poll failed: the BUSYGROUP was not treated as an error
+        verify(streamOperations, times(2)).size(RedisStreamConsumer.STREAM_KEY);
+    }
+
+    @Test
+    void consumeClickEvents_shouldRecreateTheGroupAfterNogroup() throws Exception {
+        claims(List.of(page("0-0")));
+        whenRead().thenThrow(new RedisSystemException("Error in execution",
+                new RedisCommandExecutionException("NOGROUP No such key 'url:click:stream' or consumer group")))
+                .thenReturn(List.of());
+
+        consumer.consumeClickEvents();
+        consumer.consumeClickEvents();
+
+        verify(streamCommands, times(2)).xGroupCreate(RAW_STREAM_KEY, RedisStreamConsumer.GROUP,
+                ReadOffset.from("0"), true);
+    }
+
+    @Test
+    void consumeClickEvents_shouldPageThroughStaleEntriesUntilTheScanWrapsAround() throws Exception {
+        claims(List.of(page("7-0", message("5-0", "abc")), page("0-0", message("9-0", "xyz"))));
+        whenRead().thenReturn(List.of());
+        whenPipelined();
+
+        consumer.consumeClickEvents();
+
+        verify(nativeCommands, times(2)).xautoclaim(eq(RAW_STREAM_KEY), any());
+        ArgumentCaptor<ClickBatch> batches = ArgumentCaptor.forClass(ClickBatch.class);
+        verify(clickCountWriter, times(2)).applyClicks(batches.capture());
+        assertEquals(Map.of("abc", 1L), batches.getAllValues().get(0).shortCodeCounts());
+        assertEquals(Map.of("xyz", 1L), batches.getAllValues().get(1).shortCodeCounts());
+        verify(streamCommands).xAck(RAW_STREAM_KEY, RedisStreamConsumer.GROUP, RecordId.of("5-0"));
+        verify(streamCommands).xAck(RAW_STREAM_KEY, RedisStreamConsumer.GROUP, RecordId.of("9-0"));
+    }
+
+    @Test
+    void consumeClickEvents_shouldAcknowledgeAndDeleteEachBatchAfterItsWrite() throws Exception {
+        claims(List.of(page("0-0")));
+        // A full batch of 2 means there may be more; the short one drains the stream
+        whenRead().thenReturn(List.of(record("1-0", "abc"), record("2-0", "abc")))
+                .thenReturn(List.of(record("3-0", "xyz")));
+        whenPipelined();
+
+        consumer.consumeClickEvents();
+
+        InOrder order = inOrder(clickCountWriter, streamCommands);
+        order.verify(clickCountWriter).applyClicks(any(ClickBatch.class));
+        order.verify(streamCommands).xAck(RAW_STREAM_KEY, RedisStreamConsumer.GROUP, RecordId.of("1-0"),
+                RecordId.of("2-0"));
+        order.verify(streamCommands).xDel(RAW_STREAM_KEY, RecordId.of("1-0"), RecordId.of("2-0"));
+        order.verify(clickCountWriter).applyClicks(any(ClickBatch.class));
+        order.verify(streamCommands).xAck(RAW_STREAM_KEY, RedisStreamConsumer.GROUP, RecordId.of("3-0"));
+        order.verify(streamCommands).xDel(RAW_STREAM_KEY, RecordId.of("3-0"));
+    }
+
+    @Test
+    void consumeClickEvents_shouldLeaveTheBatchPendingWhenTheWriteFails() throws Exception {
+        claims(List.of(page("0-0")));
+        whenRead().thenReturn(List.of(record("1-0", "abc")));
+        doThrow(new IllegalStateException("mongo down")).when(clickCountWriter)
+                .applyClicks(any(ClickBatch.class));
+
+        consumer.consumeClickEvents();
+
+        verify(redisTemplate, never()).executePipelined(ArgumentMatchers.<RedisCallback<?>>any());
+    }
+
+    private void claims(List<ClaimedMessages<byte[], byte[]>> pages) throws Exception {
+        List<RedisFuture<ClaimedMessages<byte[], byte[]>>> futures = new ArrayList<>();
+        for (ClaimedMessages<byte[], byte[]> claimed : pages) {
+            RedisFuture<ClaimedMessages<byte[], byte[]>> future = mock();
+            when(future.get(anyLong(), any(TimeUnit.class))).thenReturn(claimed);
+            futures.add(future);
+        }
+        OngoingStubbing<RedisFuture<ClaimedMessages<byte[], byte[]>>> stubbing = when(
+                nativeCommands.xautoclaim(any(byte[].class), any()));
+        for (RedisFuture<ClaimedMessages<byte[], byte[]>> future : futures) {
+            stubbing = stubbing.thenReturn(future);
+        }
+    }
+
+    // read takes the offsets as generic varargs, as in RedisStreams.readNew
+    @SuppressWarnings("unchecked")
+    private OngoingStubbing<List<MapRecord<String, Object, Object>>> whenRead() {
+        return when(streamOperations.read(any(Consumer.class), any(StreamReadOptions.class),
+                ArgumentMatchers.<StreamOffset<String>>any()));
+    }
+
+    private void whenPipelined() {
+        when(redisTemplate.executePipelined(ArgumentMatchers.<RedisCallback<?>>any())).thenAnswer(invocation -> {
+            invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    @SafeVarargs
+    private static ClaimedMessages<byte[], byte[]> page(String nextStart, StreamMessage<byte[], byte[]>... messages) {
+        return new ClaimedMessages<>(nextStart, List.of(messages));
+    }
+
+    private static StreamMessage<byte[], byte[]> message(String id, String shortCode) {
+        return new StreamMessage<>(RAW_STREAM_KEY, id,
+                Map.of("shortCode".getBytes(StandardCharsets.UTF_8), shortCode.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MapRecord<String, Object, Object> record(String id, String shortCode) {
+        return MapRecord.<String, Object, Object>create(RedisStreamConsumer.STREAM_KEY, Map.of("shortCode", shortCode))
+                .withId(RecordId.of(id));
+    }
+}
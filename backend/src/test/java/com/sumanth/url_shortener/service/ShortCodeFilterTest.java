@@ -0,0 +1,73 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import com.sumanth.url_shortener.model.UrlMapping;
+
+@ExtendWith(MockitoExtension.class)
+class ShortCodeFilterTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ShortCodeFilter shortCodeFilter;
+
+    @BeforeEach
+    void setUp() {
+        shortCodeFilter = new ShortCodeFilter(mongoTemplate, redisTemplate, true, 1000, 0.001,
+                Duration.ofHours(1), Duration.ofMinutes(1), 1000);
+    }
+
+    @Test
+    void mightExist_shouldLetEverythingThroughUntilBuilt() {
+        assertTrue(shortCodeFilter.mightExist("anything"));
+    }
+
+    @Test
+    void mightExist_shouldRejectCodesNeverIssued() {
+        buildWith("abc1234", "xyz9876");
+
+        assertTrue(shortCodeFilter.mightExist("abc1234"));
+        assertTrue(shortCodeFilter.mightExist("xyz9876"));
+        assertFalse(shortCodeFilter.mightExist("nope000"));
+    }
+
+    @Test
+    void add_shouldAdmitNewCodeAndClearNegativeEntry() {
+        buildWith("abc1234");
+        shortCodeFilter.recordMissing("new0001");
+        assertFalse(shortCodeFilter.mightExist("new0001"));
+
+        shortCodeFilter.add(List.of("new0001"));
+
+        assertTrue(shortCodeFilter.mightExist("new0001"));
+    }
+
+    private void buildWith(String... shortCodes) {
+        when(mongoTemplate.estimatedCount(UrlMapping.class)).thenReturn((long) shortCodes.length);
+        when(mongoTemplate.stream(any(Query.class), eq(UrlMapping.class))).thenReturn(Stream.of(shortCodes)
+                .map(shortCode -> new UrlMapping(null, null, null, null, shortCode, null, null, 0, null, false,
+                        null, null, null)));
+        shortCodeFilter.rebuild();
+    }
+}
@@ -0,0 +1,132 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import com.sumanth.url_shortener.exception.UrlNotFoundException;
+
+@ExtendWith(MockitoExtension.class)
+class UrlCacheServiceTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Test
+    void getOrLoad_concurrentMissesShouldShareOneLoad() throws Exception {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        UrlCacheService urlCache = new UrlCacheService(redisTemplate, true, 100, Duration.ofMinutes(10));
+        AtomicInteger loaderCalls = new AtomicInteger();
+        CountDownLatch loaderEntered = new CountDownLatch(1);
+        CountDownLatch releaseLoader = new CountDownLatch(1);
+        int callers = 16;
+
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        List<Future<String>> results = new ArrayList<>();
+        results.add(pool.submit(() -> urlCache.getOrLoad("abc", code -> {
+            loaderCalls.incrementAndGet();
+            loaderEntered.countDown();
+            await(releaseLoader);
+            return "https://example.com";
+        })));
+        loaderEntered.await(5, TimeUnit.SECONDS);
+        for (int i = 1; i < callers; i++) {
+            results.add(pool.submit(() -> urlCache.getOrLoad("abc", code -> {
+                loaderCalls.incrementAndGet();
+                return "https://example.com";
+            })));
+        }
+        // Give the other callers time to reach the in-flight load
+        Thread.sleep(200);
+        releaseLoader.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("https://example.com", result.get(5, TimeUnit.SECONDS));
+        }
+        pool.shutdown();
+
+        assertEquals(1, loaderCalls.get());
+        verify(valueOperations, times(1)).set(eq("abc"), eq("https://example.com"), any(Duration.class));
+    }
+
+    @Test
+    void getOrLoad_shouldPropagateLoaderException() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        UrlCacheService urlCache = new UrlCacheService(redisTemplate, true, 100, Duration.ofMinutes(10));
+
+        assertThrows(UrlNotFoundException.class, () -> urlCache.getOrLoad("missing", code -> {
+            throw new UrlNotFoundException(code);
+        }));
+        verify(valueOperations, never()).set(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    void get_shouldExtendTtlWhenRefreshIsDrawn() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        UrlCacheService urlCache = new UrlCacheService(redisTemplate, true, 100, Duration.ofMinutes(10),
+                Duration.ofHours(24), Duration.ofHours(1), 1.0);
+        when(valueOperations.getAndExpire(eq("abc"), any(Duration.class))).thenReturn("https://example.com");
+
+        assertEquals("https://example.com", urlCache.get("abc"));
+        verify(valueOperations, never()).get("abc");
+    }
+
+    @Test
+    void redisTtl_shouldStayWithinJitter() {
+        UrlCacheService urlCache = new UrlCacheService(redisTemplate, true, 100, Duration.ofMinutes(10),
+                Duration.ofHours(24), Duration.ofHours(1), 0);
+
+        for (int i = 0; i < 100; i++) {
+            Duration ttl = urlCache.redisTtl();
+            assertEquals(true, ttl.compareTo(Duration.ofHours(24)) >= 0 && ttl.compareTo(Duration.ofHours(25)) < 0);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void put_expiringLink_shouldCapTheRedisTtlAtItsRemainingLife() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        UrlCacheService urlCache = new UrlCacheService(redisTemplate, true, 100, Duration.ofMinutes(10));
+        String value = "!" + (System.currentTimeMillis() + 60_000) + "!0!https://example.com";
+
+        urlCache.put("abc", value);
+
+        verify(valueOperations).set(eq("abc"), eq(value),
+                argThat((Duration ttl) -> ttl.compareTo(Duration.ofMinutes(1)) <= 0));
+        assertEquals(value, urlCache.getLocal("abc"));
+    }
+}
@@ -0,0 +1,154 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.HexFormat;
+import java.util.List;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.sumanth.url_shortener.model.UrlMapping;
+import com.sumanth.url_shortener.util.UrlCanonicalizer;
+
+@ExtendWith(MockitoExtension.class)
+class UrlHashMigrationTest {
+
+    private static final String COLLECTION = "url_mappings";
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private UrlHashMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        migration = new UrlHashMigration(mongoTemplate, new UrlCanonicalizer(), true, 2);
+    }
+
+    @Test
+    void ensureIndexes_shouldReplaceTheUniqueUrlHashIndexWithSparseOnes() {
+        when(mongoTemplate.indexOps(UrlMapping.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(
+                new IndexInfo(List.of(IndexField.create("_id", Sort.Direction.ASC)), "_id_", false, false, ""),
+                new IndexInfo(List.of(IndexField.create("urlHash", Sort.Direction.ASC)), "urlHash", true, false, "")));
+
+        migration.ensureIndexes();
+
+        verify(indexOperations).dropIndex("urlHash");
+        verify(indexOperations, never()).dropIndex("_id_");
+        ArgumentCaptor<IndexDefinition> created = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOperations, times(2)).createIndex(created.capture());
+        assertEquals(new Document("urlHash", 1), created.getAllValues().get(0).getIndexKeys());
+        assertEquals(new Document("urlDigest", 1), created.getAllValues().get(1).getIndexKeys());
+        for (IndexDefinition index : created.getAllValues()) {
+            assertEquals(new Document("unique", true).append("sparse", true), index.getIndexOptions());
+        }
+    }
+
+    @Test
+    void ensureIndexes_shouldKeepAnIndexThatIsAlreadySparse() {
+        when(mongoTemplate.indexOps(UrlMapping.class)).thenReturn(indexOperations);
+        when(indexOperations.getIndexInfo()).thenReturn(List.of(
+                new IndexInfo(List.of(IndexField.create("urlHash", Sort.Direction.ASC)), "urlHash", true, true, "")));
+
+        migration.ensureIndexes();
+
+        verify(indexOperations, never()).dropIndex(any(String.class));
+    }
+
+    @Test
+    void migrate_shouldWalkTheCollectionInIdOrder() {
+        Document first = legacy("https://a.com");
+        Document second = legacy("https://b.com");
+        Document third = legacy("https://c.com");
+        stubCollection();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(COLLECTION)))
+                .thenReturn(List.of(first, second)).thenReturn(List.of(third)).thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+
+        assertEquals(3, migration.migrate());
+
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(3)).find(queries.capture(), eq(Document.class), eq(COLLECTION));
+        assertFalse(queries.getAllValues().get(0).getQueryObject().containsKey("_id"));
+        assertEquals(new Document("$gt", second.get("_id")), queries.getAllValues().get(1).getQueryObject().get("_id"));
+        assertEquals(new Document("$gt", third.get("_id")), queries.getAllValues().get(2).getQueryObject().get("_id"));
+        assertEquals(2, queries.getAllValues().get(0).getLimit());
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(3)).updateOne(any(Query.class), updates.capture());
+        Document update = updates.getAllValues().get(0).getUpdateObject();
+        assertArrayEquals(UrlShortenService.digest("https://a.com"),
+                ((Binary) update.get("$set", Document.class).get("urlDigest")).getData());
+        assertEquals(new Document("urlHash", 1), update.get("$unset"));
+    }
+
+    @Test
+    void migrate_shouldSkipPastDocumentsWhoseDigestIsAlreadyTaken() {
+        Document duplicate = legacy("https://a.com");
+        Document unique = legacy("https://b.com");
+        MongoBulkWriteException source = mock(MongoBulkWriteException.class);
+        when(source.getWriteErrors()).thenReturn(List.of(new BulkWriteError(11000, "duplicate key",
+                new BsonDocument(), 0)));
+        BulkOperationException failure = new BulkOperationException("failed", source);
+        stubCollection();
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(COLLECTION)))
+                .thenReturn(List.of(duplicate, unique)).thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(failure);
+
+        assertEquals(1, migration.migrate());
+
+        // The duplicate stays on urlHash, and the next batch starts after it rather than reading it again
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queries.capture(), eq(Document.class), eq(COLLECTION));
+        assertEquals(new Document("$gt", unique.get("_id")), queries.getAllValues().get(1).getQueryObject().get("_id"));
+    }
+
+    private void stubCollection() {
+        when(mongoTemplate.getCollectionName(UrlMapping.class)).thenReturn(COLLECTION);
+        when(mongoTemplate.executeCommand(any(Document.class))).thenReturn(new Document("indexSizes", new Document()));
+    }
+
+    private static Document legacy(String longUrl) {
+        return new Document("_id", new ObjectId())
+                .append("urlHash", HexFormat.of().formatHex(UrlShortenService.digest(longUrl)))
+                .append("longUrl", longUrl);
+    }
+}
@@ -0,0 +1,189 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.sumanth.url_shortener.model.UrlMapping;
+
+@ExtendWith(MockitoExtension.class)
+class UrlMappingWriteBehindTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private ShortCodeFilter shortCodeFilter;
+    private UrlMappingWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        UrlCacheService urlCache = new UrlCacheService(redisTemplate, true, 100, Duration.ofMinutes(10));
+        shortCodeFilter = new ShortCodeFilter(mongoTemplate, redisTemplate, true, 1000, 0.001,
+                Duration.ofHours(1), Duration.ofMinutes(1), 1000);
+        writeBehind = new UrlMappingWriteBehind(redisTemplate, mongoTemplate, urlCache, shortCodeFilter, true,
+                "writer-1", 500, 20, 1000, Duration.ofSeconds(30), Duration.ofHours(1));
+    }
+
+    @Test
+    void persistAndAcknowledge_shouldAddCodesAFilterRebuildMissedWhileTheyWereQueued() {
+        // Rebuilt while "a" was still in the stream, so url_mappings did not have it yet
+        when(mongoTemplate.stream(any(Query.class), eq(UrlMapping.class))).thenReturn(Stream.empty());
+        shortCodeFilter.rebuild();
+        assertFalse(shortCodeFilter.mightExist("a"));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+
+        writeBehind.persistAndAcknowledge(List.of(mapping("a")), List.of(RecordId.of("1-0")));
+
+        assertTrue(shortCodeFilter.mightExist("a"));
+        verify(redisTemplate).convertAndSend(ShortCodeFilter.CHANNEL, "a");
+    }
+
+    @Test
+    void persistAndAcknowledge_shouldNotAddALostCode() {
+        when(mongoTemplate.stream(any(Query.class), eq(UrlMapping.class))).thenReturn(Stream.empty());
+        shortCodeFilter.rebuild();
+        BulkOperationException failure = bulkFailure(11000);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(failure);
+        UrlMapping alias = mapping("a");
+        alias.setLongUrl("https://someone-else.com");
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(alias);
+
+        writeBehind.persistAndAcknowledge(List.of(mapping("a")), List.of(RecordId.of("1-0")));
+
+        verify(redisTemplate, never()).convertAndSend(anyString(), anyString());
+    }
+
+    @Test
+    void reserve_shouldHandBackTheCodeReservedEarlier() {
+        byte[] digest = UrlShortenService.digest("https://a.com");
+        String key = "url:pending:" + UrlShortenService.legacyHash(digest);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(eq(key), anyString(), any(Duration.class))).thenReturn(true, false);
+        when(valueOperations.get(key)).thenReturn("first");
+
+        assertNull(writeBehind.reserve(digest, "first"));
+        assertEquals("first", writeBehind.reserve(digest, "second"));
+    }
+
+    @Test
+    void persistAndAcknowledge_shouldTreatDuplicatesOfTheSameMappingAsStored() {
+        BulkOperationException failure = bulkFailure(11000);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(failure);
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(mapping("a"));
+
+        writeBehind.persistAndAcknowledge(List.of(mapping("a"), mapping("b")), List.of(RecordId.of("1-0"),
+                RecordId.of("2-0")));
+
+        verify(redisTemplate).executePipelined(any(RedisCallback.class));
+        assertEquals(1L, writeBehind.stats().get("persisted"));
+        assertEquals(1L, writeBehind.stats().get("duplicates"));
+    }
+
+    @Test
+    void persistAndAcknowledge_shouldStoreWithoutDigestWhenOnlyTheUrlCollided() {
+        BulkOperationException failure = bulkFailure(11000);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(failure);
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(null);
+
+        writeBehind.persistAndAcknowledge(List.of(mapping("a")), List.of(RecordId.of("1-0")));
+
+        ArgumentCaptor<UrlMapping> inserted = ArgumentCaptor.forClass(UrlMapping.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        assertEquals("a", inserted.getValue().getShortCode());
+        assertNull(inserted.getValue().getUrlDigest());
+        assertEquals(1L, writeBehind.stats().get("persisted"));
+    }
+
+    @Test
+    void persistAndAcknowledge_shouldReportAMappingWhoseCodeIsTakenAsLost() {
+        BulkOperationException failure = bulkFailure(11000);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(failure);
+        UrlMapping alias = mapping("a");
+        alias.setLongUrl("https://someone-else.com");
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(alias);
+
+        writeBehind.persistAndAcknowledge(List.of(mapping("a")), List.of(RecordId.of("1-0")));
+
+        assertEquals(1L, writeBehind.stats().get("lost"));
+        assertEquals(0L, writeBehind.stats().get("duplicates"));
+        // The cached code must not keep pointing at the lost URL
+        verify(redisTemplate).delete("a");
+    }
+
+    @Test
+    void persistAndAcknowledge_shouldLeaveTheBatchPendingOnOtherErrors() {
+        BulkOperationException failure = bulkFailure(91);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UrlMapping.class)).thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(failure);
+
+        assertThrows(BulkOperationException.class,
+                () -> writeBehind.persistAndAcknowledge(List.of(mapping("a")), List.of(RecordId.of("1-0"))));
+
+        verify(redisTemplate, never()).executePipelined(any(RedisCallback.class));
+    }
+
+    private static UrlMapping mapping(String shortCode) {
+        Instant now = Instant.now();
+        return new UrlMapping(null, "https://" + shortCode + ".com", null,
+                UrlShortenService.digest("https://" + shortCode + ".com"), shortCode, now, now, 0, null, false, null, null,
+                null);
+    }
+
+    private static BulkOperationException bulkFailure(int code) {
+        MongoBulkWriteException source = mock(MongoBulkWriteException.class);
+        when(source.getWriteErrors()).thenReturn(List.of(new BulkWriteError(code, "failed", new BsonDocument(), 0)));
+        return new BulkOperationException("failed", source);
+    }
+}
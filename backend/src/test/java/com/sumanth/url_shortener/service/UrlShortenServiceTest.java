@@ -1,26 +1,49 @@
 package com.sumanth.url_shortener.service;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.sumanth.url_shortener.exception.AliasUnavailableException;
+import com.sumanth.url_shortener.exception.InvalidAliasException;
+import com.sumanth.url_shortener.exception.InvalidExpiryException;
 import com.sumanth.url_shortener.exception.InvalidUrlException;
+import com.sumanth.url_shortener.exception.UrlExpiredException;
+import com.sumanth.url_shortener.exception.UrlNotFoundException;
 import com.sumanth.url_shortener.model.UrlMapping;
 import com.sumanth.url_shortener.repository.UrlMappingRepository;
 import com.sumanth.url_shortener.util.SecureCodeGenerator;
+import com.sumanth.url_shortener.util.UrlCanonicalizer;
 
 @ExtendWith(MockitoExtension.class)
 public class UrlShortenServiceTest {
@@ -38,22 +61,39 @@ public class UrlShortenServiceTest {
     private ValueOperations<String, String> valueOperations;
 
     @Mock
-    private RedisStreamPublisher publisher;
+    private ClickRecorder clickRecorder;
 
     @Mock
     private SecureCodeGenerator secureCodeGenerator;
 
+    @Mock
+    private UrlMappingWriteBehind writeBehind;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AliasReservations aliasReservations;
     private UrlShortenService urlShortenService;
 
     @BeforeEach
     void setUp() {
-        urlShortenService = new UrlShortenService(repo, counterService, redisTemplate, publisher, secureCodeGenerator);
+        UrlCacheService urlCache = new UrlCacheService(redisTemplate, true, 100, Duration.ofMinutes(10));
+        ShortCodeFilter shortCodeFilter = new ShortCodeFilter(null, null, false, 1000, 0.01,
+                Duration.ofHours(1), Duration.ofMinutes(1), 1000);
+        meterRegistry = new SimpleMeterRegistry();
+        aliasReservations = new AliasReservations(mongoTemplate, redisTemplate, shortCodeFilter, 3, 64, 5,
+                List.of("shorten"));
+        urlShortenService = new UrlShortenService(repo, counterService, urlCache, clickRecorder, shortCodeFilter,
+                secureCodeGenerator, new UrlCanonicalizer(), writeBehind, aliasReservations,
+                new ShortDomains(List.of("go.example.com")),
+                new LinkLimits(mongoTemplate, redisTemplate, urlCache), meterRegistry, true);
     }
 
     @Test
     void shortenUrl_validUrl_shouldReturnMapping() {
         String longUrl = "https://www.google.com";
-        when(repo.findByUrlHash(any())).thenReturn(Optional.empty());
+        when(repo.findFirstByUrlDigestOrUrlHash(any(), any())).thenReturn(Optional.empty());
         when(counterService.getNextSequence()).thenReturn(1L);
         when(secureCodeGenerator.generate(1L)).thenReturn("shortCode");
         when(repo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
@@ -68,7 +108,7 @@ public class UrlShortenServiceTest {
     @Test
     void shortenUrl_validUrlWithUpperCase_shouldNormalize() {
         String longUrl = "HTTPS://WWW.GOOGLE.COM/Path";
-        when(repo.findByUrlHash(any())).thenReturn(Optional.empty());
+        when(repo.findFirstByUrlDigestOrUrlHash(any(), any())).thenReturn(Optional.empty());
         when(counterService.getNextSequence()).thenReturn(1L);
         when(secureCodeGenerator.generate(1L)).thenReturn("shortCode");
         when(repo.save(any())).thenAnswer(invocation -> {
@@ -77,8 +117,8 @@ public class UrlShortenServiceTest {
             // Wait, the service saves the *original* longUrl passed to the method if it's
             // new?
             // Looking at the code:
-            // String normalisedLongUrl = normalizeAndValidateUrl(longUrl);
-            // UrlMapping mapping = new UrlMapping(null, longUrl, hash, shortCode, ...);
+            // String normalisedLongUrl = urlCanonicalizer.canonicalize(longUrl);
+            // UrlMapping mapping = new UrlMapping(null, longUrl, null, digest, shortCode, ...);
             // It saves the ORIGINAL url but hashes the NORMALIZED one.
             return mapping;
         });
@@ -107,7 +147,7 @@ public class UrlShortenServiceTest {
         // Actually, let's just valid basic functionality via shortenUrl flow.
 
         String urlWithDefaultPort = "http://google.com:80";
-        when(repo.findByUrlHash(any())).thenReturn(Optional.empty());
+        when(repo.findFirstByUrlDigestOrUrlHash(any(), any())).thenReturn(Optional.empty());
         when(counterService.getNextSequence()).thenReturn(1L);
         when(secureCodeGenerator.generate(1L)).thenReturn("shortCode");
         when(repo.save(any())).thenAnswer(i -> i.getArgument(0));
@@ -117,7 +157,60 @@ public class UrlShortenServiceTest {
     }
 
     @Test
-    void expandUrl_shouldPublishClickEvent() {
+    void shortenUrl_shouldStoreBinaryDigestAndMatchLegacyHex() {
+        byte[] digest = UrlShortenService.digest("https://www.google.com");
+        String legacyHash = UrlShortenService.legacyHash(digest);
+        when(repo.findFirstByUrlDigestOrUrlHash(any(), eq(legacyHash))).thenReturn(Optional.empty());
+        when(counterService.getNextSequence()).thenReturn(1L);
+        when(secureCodeGenerator.generate(1L)).thenReturn("shortCode");
+        when(repo.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        UrlMapping result = urlShortenService.shortenUrl("HTTPS://WWW.GOOGLE.COM:443");
+
+        assertEquals(32, result.getUrlDigest().length);
+        assertArrayEquals(digest, result.getUrlDigest());
+        assertNull(result.getUrlHash());
+        assertEquals(64, legacyHash.length());
+        assertArrayEquals(digest, UrlShortenService.digestOf(new UrlMapping(null, null, legacyHash, null, null,
+                null, null, 0, null, false, null, null, null)));
+    }
+
+    @Test
+    void shortenUrl_writeBehind_shouldQueueInsteadOfSaving() {
+        when(repo.findFirstByUrlDigestOrUrlHash(any(), any())).thenReturn(Optional.empty());
+        when(counterService.getNextSequence()).thenReturn(1L, 2L);
+        when(secureCodeGenerator.generate(anyLong())).thenAnswer(i -> "code" + i.getArgument(0));
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.reserve(any(), eq("code1"))).thenReturn(null);
+        when(writeBehind.reserve(any(), eq("code2"))).thenReturn("code1");
+        when(writeBehind.enqueue(any())).thenReturn(true);
+
+        assertEquals("code1", urlShortenService.shortenUrl("https://www.google.com").getShortCode());
+        // Still queued, so the second request gets the reserved code
+        assertEquals("code1", urlShortenService.shortenUrl("https://www.google.com").getShortCode());
+
+        verify(writeBehind, times(1)).enqueue(any());
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void shortenUrl_writeBehindFallbackFails_shouldReleaseTheReservation() {
+        when(repo.findFirstByUrlDigestOrUrlHash(any(), any())).thenReturn(Optional.empty());
+        when(counterService.getNextSequence()).thenReturn(1L);
+        when(secureCodeGenerator.generate(1L)).thenReturn("code1");
+        when(writeBehind.isEnabled()).thenReturn(true);
+        when(writeBehind.reserve(any(), eq("code1"))).thenReturn(null);
+        when(writeBehind.enqueue(any())).thenReturn(false);
+        when(repo.save(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThrows(DataAccessResourceFailureException.class,
+                () -> urlShortenService.shortenUrl("https://www.google.com"));
+
+        verify(writeBehind).release(any(), eq("code1"));
+    }
+
+    @Test
+    void expandUrl_shouldRecordClick() {
         String shortCode = "abc";
         String longUrl = "https://www.google.com";
 
@@ -128,7 +221,187 @@ public class UrlShortenServiceTest {
 
         assertNotNull(result);
         assertEquals(longUrl, result.getLongUrl());
-        // Verify that publishClickEvent was called
-        org.mockito.Mockito.verify(publisher).publishClickEvent(shortCode);
+        // Verify that the click was recorded
+        org.mockito.Mockito.verify(clickRecorder).recordClick(shortCode);
+    }
+
+    @Test
+    void expandUrl_secondCallShouldBeServedFromLocalCache() {
+        String shortCode = "abc";
+        String longUrl = "https://www.google.com";
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(shortCode)).thenReturn(longUrl);
+
+        urlShortenService.expandUrl(shortCode, true);
+        UrlMapping result = urlShortenService.expandUrl(shortCode, true);
+
+        assertEquals(longUrl, result.getLongUrl());
+        verify(valueOperations, times(1)).get(shortCode);
+        verify(clickRecorder, times(2)).recordClick(shortCode);
+    }
+
+    @Test
+    void expandUrl_unknownCode_shouldRecordNotFoundAndDatabaseLatency() {
+        String shortCode = "missing";
+
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get(shortCode)).thenReturn(null);
+        when(repo.findByShortCodeAndDomain(shortCode, null)).thenReturn(Optional.empty());
+
+        assertThrows(UrlNotFoundException.class, () -> urlShortenService.expandUrl(shortCode, true));
+
+        assertEquals(1, meterRegistry.get("url.redirect").tag("result", "not_found").timer().count());
+        assertEquals(0, meterRegistry.get("url.redirect").tag("result", "found").timer().count());
+        assertEquals(1, meterRegistry.get("url.db").tag("operation", "find_by_short_code").timer().count());
+        verify(clickRecorder, never()).recordClick(shortCode);
+    }
+
+    @Test
+    void shortenUrl_alias_shouldSaveWithoutDigestAndReserveIt() {
+        when(repo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UrlMapping result = urlShortenService.shortenUrl("https://www.google.com", "docs", null, null, null, null);
+
+        assertEquals("docs", result.getShortCode());
+        assertNull(result.getUrlDigest());
+        assertEquals(true, result.isCustom());
+        assertEquals(true, aliasReservations.isAlias(null, "docs"));
+        verify(repo, never()).findFirstByUrlDigestOrUrlHash(any(), any());
+        verify(counterService, never()).getNextSequence();
+    }
+
+    @Test
+    void shortenUrl_aliasTakenConcurrently_shouldThrowAliasUnavailable() {
+        when(repo.save(any())).thenThrow(new DuplicateKeyException("E11000"));
+
+        assertThrows(AliasUnavailableException.class,
+                () -> urlShortenService.shortenUrl("https://www.google.com", "docs", null, null, null, null));
+        assertEquals(false, aliasReservations.isAlias(null, "docs"));
+    }
+
+    @Test
+    void shortenUrl_invalidAliasOrDomain_shouldBeRejected() {
+        assertThrows(InvalidAliasException.class,
+                () -> urlShortenService.shortenUrl("https://www.google.com", "shorten", null, null, null, null));
+        assertThrows(InvalidAliasException.class,
+                () -> urlShortenService.shortenUrl("https://www.google.com", "a/b", null, null, null, null));
+        assertThrows(InvalidAliasException.class,
+                () -> urlShortenService.shortenUrl("https://www.google.com", "docs", "unknown.example.com", null,
+                        null, null));
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void shortenUrl_generatedCode_shouldSkipCodesTakenAsAliases() {
+        when(repo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        urlShortenService.shortenUrl("https://www.google.com/alias", "abc1234", null, null, null, null);
+
+        when(repo.findFirstByUrlDigestOrUrlHash(any(), any())).thenReturn(Optional.empty());
+        when(counterService.getNextSequence()).thenReturn(1L, 2L);
+        when(secureCodeGenerator.generate(1L)).thenReturn("abc1234");
+        when(secureCodeGenerator.generate(2L)).thenReturn("xyz5678");
+
+        assertEquals("xyz5678", urlShortenService.shortenUrl("https://www.google.com").getShortCode());
+    }
+
+    @Test
+    void expandUrl_brandedDomain_shouldUseItsOwnNamespace() {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setLongUrl("https://www.google.com/branded");
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("go.example.com/abc")).thenReturn(null);
+        when(repo.findByShortCodeAndDomain("abc", "go.example.com")).thenReturn(Optional.of(mapping));
+
+        UrlMapping result = urlShortenService.expandUrl("go.example.com", "abc", true);
+
+        assertEquals("https://www.google.com/branded", result.getLongUrl());
+        verify(clickRecorder).recordClick("go.example.com/abc");
+    }
+
+    @Test
+    void shortenUrl_withLimits_shouldStoreThemWithoutDeduplicating() {
+        Instant expiresAt = Instant.now().plus(Duration.ofDays(1));
+        when(counterService.getNextSequence()).thenReturn(1L);
+        when(secureCodeGenerator.generate(1L)).thenReturn("shortCode");
+        when(repo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UrlMapping result = urlShortenService.shortenUrl("https://www.google.com", null, null, expiresAt, 10L, null);
+
+        assertEquals(expiresAt, result.getExpiresAt());
+        assertEquals(10L, result.getMaxClicks());
+        assertNull(result.getUrlDigest());
+        verify(repo, never()).findFirstByUrlDigestOrUrlHash(any(), any());
+    }
+
+    @Test
+    void shortenUrl_owned_shouldGetItsOwnCodeEvenForAKnownUrl() {
+        when(counterService.getNextSequence()).thenReturn(1L);
+        when(secureCodeGenerator.generate(1L)).thenReturn("shortCode");
+        when(repo.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        UrlMapping result = urlShortenService.shortenUrl("https://www.google.com", null, null, null, null, "user-1");
+
+        assertEquals("user-1", result.getOwnerId());
+        assertEquals("shortCode", result.getShortCode());
+        assertNull(result.getUrlDigest());
+        verify(repo, never()).findFirstByUrlDigestOrUrlHash(any(), any());
+    }
+
+    @Test
+    void shortenUrl_invalidLimits_shouldBeRejected() {
+        assertThrows(InvalidExpiryException.class, () -> urlShortenService.shortenUrl("https://www.google.com",
+                null, null, Instant.now().minusSeconds(1), null, null));
+        assertThrows(InvalidExpiryException.class,
+                () -> urlShortenService.shortenUrl("https://www.google.com", null, null, null, 0L, null));
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    void expandUrl_expiredCacheEntry_shouldBeGoneWithoutReadingMongo() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("abc"))
+                .thenReturn("!" + (System.currentTimeMillis() - 1000) + "!0!https://www.google.com");
+
+        assertThrows(UrlExpiredException.class, () -> urlShortenService.expandUrl("abc", true));
+
+        verify(repo, never()).findByShortCodeAndDomain(any(), any());
+        verify(clickRecorder, never()).recordClick("abc");
+    }
+
+    @Test
+    void expandUrl_cappedLink_shouldExpireAfterItsLastClick() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("abc")).thenReturn("!0!2!https://www.google.com");
+        // Seeded at zero when the link was loaded, so even the first click needs no stored count
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(),
+                eq(List.of(LinkLimits.COUNTER_PREFIX + "abc")))).thenReturn(1L).thenReturn(2L).thenReturn(3L);
+
+        assertEquals("https://www.google.com", urlShortenService.expandUrl("abc", true).getLongUrl());
+        assertEquals("https://www.google.com", urlShortenService.expandUrl("abc", true).getLongUrl());
+        assertThrows(UrlExpiredException.class, () -> urlShortenService.expandUrl("abc", true));
+
+        verify(clickRecorder, times(2)).recordClick("abc");
+        verify(mongoTemplate, never()).findOne(any(Query.class), eq(UrlMapping.class));
+        verify(mongoTemplate).updateFirst(any(), any(), eq(UrlMapping.class));
+        verify(redisTemplate).delete("abc");
+    }
+
+    @Test
+    void expandUrl_cappedLinkWhoseCounterVanished_shouldContinueFromTheStoredCount() {
+        UrlMapping stored = new UrlMapping();
+        stored.setClickCount(2);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.get("abc")).thenReturn("!0!2!https://www.google.com");
+        when(redisTemplate.execute(ArgumentMatchers.<RedisScript<Long>>any(),
+                eq(List.of(LinkLimits.COUNTER_PREFIX + "abc")))).thenReturn(-1L);
+        when(valueOperations.increment(LinkLimits.COUNTER_PREFIX + "abc")).thenReturn(3L);
+        when(mongoTemplate.findOne(any(Query.class), eq(UrlMapping.class))).thenReturn(stored);
+
+        assertThrows(UrlExpiredException.class, () -> urlShortenService.expandUrl("abc", true));
+
+        verify(clickRecorder, never()).recordClick("abc");
+        // Another instance may be reseeding too; only one of them sets the stored count
+        verify(valueOperations).setIfAbsent(LinkLimits.COUNTER_PREFIX + "abc", "2");
     }
 }
@@ -0,0 +1,105 @@
+package com.sumanth.url_shortener.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.sumanth.url_shortener.controller.dto.LinkPageDto;
+import com.sumanth.url_shortener.exception.InvalidCursorException;
+import com.sumanth.url_shortener.model.UrlMapping;
+
+@ExtendWith(MockitoExtension.class)
+class UserLinksServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ClickRecorder clickRecorder;
+
+    private UserLinksService userLinksService;
+
+    @BeforeEach
+    void setUp() {
+        ClickStatsService clickStats = new ClickStatsService(mongoTemplate, clickRecorder, 100,
+                Duration.ofMinutes(1), Duration.ofMinutes(5));
+        userLinksService = new UserLinksService(mongoTemplate, clickStats, 2, 10);
+    }
+
+    @Test
+    void page_shouldReturnACursorOnlyWhenThereIsANextPage() {
+        Instant now = Instant.now();
+        List<UrlMapping> rows = List.of(mapping("c", now), mapping("b", now.minusSeconds(1)),
+                mapping("a", now.minusSeconds(2)));
+        when(mongoTemplate.find(any(Query.class), eq(UrlMapping.class))).thenReturn(rows).thenReturn(rows.subList(2, 3));
+        when(clickRecorder.pendingClicks(anyCollection())).thenReturn(Map.of("c", 3L));
+
+        LinkPageDto first = userLinksService.page("user-1", null, null);
+
+        assertEquals(List.of("c", "b"), first.getLinks().stream().map(link -> link.getShortCode()).toList());
+        assertEquals(8, first.getLinks().get(0).getClickCount());
+        assertEquals(UserLinksService.encode(rows.get(1)), first.getNextCursor());
+
+        LinkPageDto last = userLinksService.page("user-1", first.getNextCursor(), null);
+
+        assertEquals(1, last.getLinks().size());
+        assertNull(last.getNextCursor());
+        // One read of the pending clicks per page, not per link
+        verify(clickRecorder, times(2)).pendingClicks(anyCollection());
+    }
+
+    @Test
+    void page_shouldSeekPastTheCursorWithoutSkipping() {
+        UrlMapping after = mapping("b", Instant.ofEpochMilli(1_700_000_000_000L));
+        when(mongoTemplate.find(any(Query.class), eq(UrlMapping.class))).thenReturn(List.of());
+
+        userLinksService.page("user-1", UserLinksService.encode(after), 50);
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(UrlMapping.class));
+        assertEquals(0, query.getValue().getSkip());
+        assertEquals(11, query.getValue().getLimit());
+        assertEquals(new Document("createdAt", -1).append("_id", -1), query.getValue().getSortObject());
+        assertEquals("user-1", query.getValue().getQueryObject().get("ownerId"));
+    }
+
+    @Test
+    void decode_shouldRejectForeignCursors() {
+        assertThrows(InvalidCursorException.class, () -> UserLinksService.decode("not base64!"));
+        assertThrows(InvalidCursorException.class, () -> UserLinksService.decode("MTIzOmFiYw"));
+        assertEquals(Instant.ofEpochMilli(5), UserLinksService.decode(
+                UserLinksService.encode(mapping("a", Instant.ofEpochMilli(5)))).createdAt());
+    }
+
+    private static UrlMapping mapping(String shortCode, Instant createdAt) {
+        UrlMapping mapping = new UrlMapping();
+        mapping.setId(new ObjectId().toHexString());
+        mapping.setShortCode(shortCode);
+        mapping.setLongUrl("https://" + shortCode + ".com");
+        mapping.setCreatedAt(createdAt);
+        mapping.setClickCount(5);
+        return mapping;
+    }
+}
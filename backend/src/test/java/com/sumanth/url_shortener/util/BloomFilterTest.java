@@ -0,0 +1,40 @@
+package com.sumanth.url_shortener.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+
+    @Test
+    public void mightContain_shouldNeverMissAnAddedValue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("code" + i);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("code" + i), "Missing code" + i);
+        }
+    }
+
+    @Test
+    public void mightContain_shouldStayNearTargetFalsePositiveRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("code" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = falsePositives / 100_000.0;
+        assertTrue(rate < 0.02, "False positive rate too high: " + rate);
+        assertTrue(Math.abs(filter.expectedFalsePositiveRate() - 0.01) < 0.005,
+                "Unexpected estimate: " + filter.expectedFalsePositiveRate());
+        assertTrue(Math.abs(filter.approximateElementCount() - 10_000) < 500,
+                "Unexpected count estimate: " + filter.approximateElementCount());
+    }
+}
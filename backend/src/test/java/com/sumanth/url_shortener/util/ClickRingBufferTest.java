@@ -0,0 +1,75 @@
+package com.sumanth.url_shortener.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.jupiter.api.Test;
+
+class ClickRingBufferTest {
+
+    @Test
+    void capacity_shouldRoundUpToPowerOfTwo() {
+        assertEquals(8, new ClickRingBuffer(8).capacity());
+        assertEquals(16, new ClickRingBuffer(9).capacity());
+        assertEquals(1, new ClickRingBuffer(1).capacity());
+    }
+
+    @Test
+    void offer_shouldRejectWhenFullAndAcceptAgainAfterDrain() {
+        ClickRingBuffer ring = new ClickRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer("code" + i, i));
+        }
+        assertFalse(ring.offer("overflow", 99));
+        assertEquals(4, ring.size());
+
+        List<String> drained = new ArrayList<>();
+        assertEquals(2, ring.drain((shortCode, timestamp) -> drained.add(shortCode + "@" + timestamp), 2));
+        assertEquals(List.of("code0@0", "code1@1"), drained);
+
+        assertTrue(ring.offer("code4", 4));
+        assertEquals(3, ring.drain((shortCode, timestamp) -> drained.add(shortCode + "@" + timestamp), 10));
+        assertEquals(List.of("code0@0", "code1@1", "code2@2", "code3@3", "code4@4"), drained);
+        assertEquals(0, ring.size());
+    }
+
+    @Test
+    void drain_shouldSeeEveryEventFromConcurrentProducersOnce() throws Exception {
+        ClickRingBuffer ring = new ClickRingBuffer(1024);
+        int producers = 4;
+        int perProducer = 50_000;
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(producers);
+
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            pool.execute(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!ring.offer(producer + ":" + i, i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        int total = 0;
+        while (done.getCount() > 0 || ring.size() > 0) {
+            total += ring.drain((shortCode, timestamp) -> assertTrue(seen.add(shortCode)), 256);
+        }
+        pool.shutdown();
+
+        assertEquals(producers * perProducer, total);
+        assertEquals(producers * perProducer, seen.size());
+    }
+}
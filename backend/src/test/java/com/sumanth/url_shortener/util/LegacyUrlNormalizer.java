@@ -0,0 +1,53 @@
+package com.sumanth.url_shortener.util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import com.sumanth.url_shortener.exception.InvalidUrlException;
+
+/**
+ * The original java.net.URI based normaliser, kept as the reference for
+ * {@link UrlCanonicalizer} and as the benchmark baseline.
+ */
+public final class LegacyUrlNormalizer {
+
+    private LegacyUrlNormalizer() {
+    }
+
+    public static String normalizeAndValidateUrl(String urlString) {
+        try {
+            // Basic format check
+            String lowerCaseUrl = urlString.toLowerCase();
+            if (!lowerCaseUrl.startsWith("http://") && !lowerCaseUrl.startsWith("https://")) {
+                throw new InvalidUrlException("URL must start with http:// or https://");
+            }
+
+            URI uri = new URI(urlString);
+
+            // Validate host
+            if (uri.getHost() == null || uri.getHost().isEmpty()) {
+                throw new InvalidUrlException("Invalid URL: Host cannot be empty");
+            }
+
+            // Normalize: Scheme and Host to lowercase, remove default ports
+            String scheme = uri.getScheme().toLowerCase();
+            String host = uri.getHost().toLowerCase();
+            int port = uri.getPort();
+
+            // Remove default ports
+            if ((scheme.equals("http") && port == 80) || (scheme.equals("https") && port == 443)) {
+                port = -1;
+            }
+
+            // Reconstruct URI with normalized components
+            URI normalizedUri = new URI(scheme, uri.getUserInfo(), host, port, uri.getPath(), uri.getQuery(),
+                    uri.getFragment());
+
+            // Resolve dot segments (./ and ../)
+            return normalizedUri.normalize().toString();
+
+        } catch (URISyntaxException e) {
+            throw new InvalidUrlException("Invalid URL format: " + e.getMessage());
+        }
+    }
+}
@@ -2,7 +2,10 @@ package com.sumanth.url_shortener.util;
 
 import org.junit.jupiter.api.Test;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class SecureCodeGeneratorTest {
@@ -47,4 +50,74 @@ public class SecureCodeGeneratorTest {
         // Check first char difference to ensure "randomness" look
         assertNotEquals(code1.charAt(0), code2.charAt(0));
     }
+
+    @Test
+    public void generate_compatModeShouldMatchLegacyOutput() {
+        String alphabet = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        LegacySecureCodeGenerator legacy = new LegacySecureCodeGenerator("test_secret", alphabet);
+
+        for (long seq = 0; seq <= 20_000; seq++) {
+            assertEquals(legacy.generate(seq), generator.generate(seq), "Mismatch for input: " + seq);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            long seq = random.nextLong();
+            assertEquals(legacy.generate(seq), generator.generate(seq), "Mismatch for input: " + seq);
+        }
+        assertEquals(legacy.generate(Long.MIN_VALUE), generator.generate(Long.MIN_VALUE));
+        assertEquals(legacy.generate(Long.MAX_VALUE), generator.generate(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void generate_compatModeShouldMatchLegacyOutputForOtherAlphabets() {
+        String[] alphabets = {
+                "01",
+                "0123456789",
+                "ZYXWVUTSRQPONMLKJIHGFEDCBAzyxwvutsrqponmlkjihgfedcba9876543210",
+                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_" };
+
+        for (String alphabet : alphabets) {
+            LegacySecureCodeGenerator legacy = new LegacySecureCodeGenerator("another_secret", alphabet);
+            SecureCodeGenerator compat = new SecureCodeGenerator("another_secret", alphabet);
+            for (long seq = 1; seq <= 2_000; seq++) {
+                assertEquals(legacy.generate(seq), compat.generate(seq),
+                        "Mismatch for alphabet " + alphabet + " and input: " + seq);
+            }
+        }
+    }
+
+    @Test
+    public void generate_fastModeShouldReturnSevenCharactersFromAlphabet() {
+        String alphabet = "0123456789abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        SecureCodeGenerator fast = new SecureCodeGenerator("test_secret", alphabet, SecureCodeGenerator.Mode.FAST);
+
+        Set<String> codes = new HashSet<>();
+        for (long seq = 1; seq <= 1000; seq++) {
+            String code = fast.generate(seq);
+            assertEquals(7, code.length());
+            assertTrue(code.chars().allMatch(c -> alphabet.indexOf(c) >= 0));
+            assertTrue(codes.add(code), "Duplicate code generated for input: " + seq);
+        }
+        assertEquals(fast.generate(99L), fast.generate(99L));
+    }
+
+    @Test
+    public void generate_onVirtualThreadsShouldMatchPlatformThreadOutput() throws Exception {
+        int count = 2000;
+        String[] expected = new String[count];
+        for (int i = 0; i < count; i++) {
+            expected[i] = generator.generate(i);
+        }
+
+        String[] actual = new String[count];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < count; i++) {
+                int seq = i;
+                executor.submit(() -> actual[seq] = generator.generate(seq));
+            }
+        }
+
+        assertArrayEquals(expected, actual);
+    }
 }
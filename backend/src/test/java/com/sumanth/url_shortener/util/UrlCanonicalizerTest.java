@@ -0,0 +1,148 @@
+package com.sumanth.url_shortener.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.sumanth.url_shortener.exception.InvalidUrlException;
+
+import net.jqwik.api.Arbitraries;
+import net.jqwik.api.Arbitrary;
+import net.jqwik.api.Combinators;
+import net.jqwik.api.ForAll;
+import net.jqwik.api.Property;
+import net.jqwik.api.Provide;
+
+public class UrlCanonicalizerTest {
+
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+
+    @Test
+    void canonicalize_shouldNormaliseSchemeHostPortAndDotSegments() {
+        assertEquals("https://example.com/a/c",
+                canonicalizer.canonicalize("HTTPS://Example.COM:443/a/./b/../c"));
+        assertEquals("http://example.com:8080/a/", canonicalizer.canonicalize("http://example.com:8080//a//"));
+    }
+
+    @Test
+    void canonicalize_shouldDecodeOnlyUnreservedEscapes() {
+        assertEquals("http://a.com/~user/%2F%C3%A9?q=%26A",
+                canonicalizer.canonicalize("http://a.com/%7euser/%2f%c3%a9?q=%26%41"));
+    }
+
+    @Test
+    void canonicalize_shouldSortQueryParametersWhenEnabled() {
+        UrlCanonicalizer sorting = new UrlCanonicalizer(true);
+        assertEquals("http://a.com/?a=1&b=2&b=1#f", sorting.canonicalize("http://a.com/?b=2&&a=1&b=1#f"));
+        assertEquals("http://a.com/?b=2&&a=1&b=1#f", canonicalizer.canonicalize("http://a.com/?b=2&&a=1&b=1#f"));
+    }
+
+    @Test
+    void canonicalize_shouldReturnTheSameInstanceWhenAlreadyCanonical() {
+        String url = "https://example.com/a/b?x=1#top";
+        assertSame(url, canonicalizer.canonicalize(url));
+    }
+
+    @Test
+    void canonicalize_shouldRejectInvalidUrls() {
+        for (String url : List.of("ftp://a.com", "a.com", "http://", "http://a_b.com/", "http://-a.com/",
+                "http://a.com/%zz", "http://a.com/a b", "http://a.com:99999/", "http://a.com:8o/")) {
+            assertThrows(InvalidUrlException.class, () -> canonicalizer.canonicalize(url), url);
+        }
+    }
+
+    @Property
+    void plainUrlsShouldMatchTheLegacyNormaliser(@ForAll("plainUrls") String url) {
+        assertEquals(LegacyUrlNormalizer.normalizeAndValidateUrl(url), canonicalizer.canonicalize(url));
+    }
+
+    @Property
+    void canonicalFormShouldBeStable(@ForAll("plainUrls") String url) {
+        String canonical = canonicalizer.canonicalize(escapeUnreserved(url));
+        assertEquals(canonical, canonicalizer.canonicalize(canonical));
+        assertEquals(canonicalizer.canonicalize(url), canonical);
+    }
+
+    @Property
+    void shouldRejectWhatTheLegacyNormaliserRejects(@ForAll("rawSuffixes") String suffix) {
+        String url = "http://example.com/" + suffix;
+        try {
+            LegacyUrlNormalizer.normalizeAndValidateUrl(url);
+        } catch (InvalidUrlException e) {
+            assertThrows(InvalidUrlException.class, () -> canonicalizer.canonicalize(url), url);
+        }
+    }
+
+    @Provide
+    Arbitrary<String> plainUrls() {
+        Arbitrary<String> scheme = Arbitraries.of("http://", "https://", "HTTP://", "Https://");
+        Arbitrary<String> host = Arbitraries.strings().withCharRange('a', 'z').withCharRange('A', 'Z')
+                .withCharRange('0', '9').ofMinLength(1).ofMaxLength(8)
+                .filter(label -> Character.isLetter(label.charAt(0)))
+                .list().ofMinSize(1).ofMaxSize(3)
+                .map(labels -> String.join(".", labels));
+        Arbitrary<String> port = Arbitraries.oneOf(
+                Arbitraries.just(""), Arbitraries.of(":80", ":443"),
+                Arbitraries.integers().between(1, 65535).map(p -> ":" + p));
+        Arbitrary<String> segment = Arbitraries.oneOf(
+                Arbitraries.strings().withChars("abcXYZ019-_~!$&'()*+,;=:@").ofMaxLength(6),
+                Arbitraries.of(".", ".."));
+        Arbitrary<String> path = segment.list().ofMaxSize(6)
+                .filter(UrlCanonicalizerTest::staysBelowRoot)
+                .map(segments -> segments.isEmpty() ? "" : "/" + String.join("/", segments));
+        Arbitrary<String> query = Arbitraries.strings().withChars("abcXYZ019-._~=&/?:@").ofMaxLength(10)
+                .injectNull(0.3).map(q -> q == null ? "" : "?" + q);
+        Arbitrary<String> fragment = Arbitraries.strings().withChars("abc019-._~=/").ofMaxLength(6)
+                .injectNull(0.5).map(f -> f == null ? "" : "#" + f);
+        return Combinators.combine(scheme, host, port, path, query, fragment)
+                .as((s, h, p, pa, q, f) -> s + h + p + pa + q + f);
+    }
+
+    @Provide
+    Arbitrary<String> rawSuffixes() {
+        return Arbitraries.strings().withCharRange(' ', '~').ofMaxLength(12);
+    }
+
+    /**
+     * java.net.URI keeps a ".." that climbs above the root, RFC 3986 drops it;
+     * that is the one place the two are allowed to differ.
+     */
+    private static boolean staysBelowRoot(List<String> segments) {
+        int depth = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (segment.equals("..")) {
+                if (--depth < 0) {
+                    return false;
+                }
+            } else if (!segment.equals(".") && !(segment.isEmpty() && i < segments.size() - 1)) {
+                depth++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Escapes every unreserved letter in the path, query and fragment.
+     */
+    private static String escapeUnreserved(String url) {
+        int pathStart = url.indexOf('/', url.indexOf("//") + 2);
+        if (pathStart < 0) {
+            return url;
+        }
+        StringBuilder escaped = new StringBuilder(url.substring(0, pathStart));
+        for (int i = pathStart; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (Character.isLetter(c)) {
+                escaped.append('%').append(String.format("%02x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}